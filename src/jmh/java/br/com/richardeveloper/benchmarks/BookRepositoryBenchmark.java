@@ -0,0 +1,57 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.repositories.BookRepository;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BookRepositoryBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	private int catalogSize;
+
+	private ConfigurableApplicationContext context;
+
+	private BookRepository repository;
+
+	@Setup
+	public void setUp() {
+		context = Catalog.start(Catalog.Repositories.class);
+		Catalog.seedBooks(context.getBean(JdbcTemplate.class), catalogSize);
+		repository = context.getBean(BookRepository.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Optional<Book> findByIsbn() {
+		return repository.findByIsbn(Catalog.isbn(ThreadLocalRandom.current().nextInt(catalogSize)));
+	}
+
+}
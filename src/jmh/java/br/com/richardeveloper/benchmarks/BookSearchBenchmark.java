@@ -0,0 +1,85 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.services.BookSearchIndex;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookSearchBenchmark {
+
+	@Param({ "100000", "1000000" })
+	private int catalogSize;
+
+	private ConfigurableApplicationContext context;
+
+	private BookRepository repository;
+
+	private BookSearchIndex searchIndex;
+
+	private ExampleMatcher matcher;
+
+	@Setup
+	public void setUp() {
+		context = Catalog.start(Catalog.Repositories.class);
+		Catalog.seedBooks(context.getBean(JdbcTemplate.class), catalogSize);
+		repository = context.getBean(BookRepository.class);
+		searchIndex = new BookSearchIndex(repository);
+		searchIndex.rebuild();
+		matcher = ExampleMatcher.matching()
+				.withIgnoreCase()
+				.withIgnoreNullValues()
+				.withStringMatcher(StringMatcher.CONTAINING);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		searchIndex.destroy();
+		context.close();
+	}
+
+	@Benchmark
+	public Page<Book> exampleQuery() {
+		Book probe = Book.builder().author(author()).build();
+		return repository.findAll(Example.of(probe, matcher), PageRequest.of(0, 20));
+	}
+
+	@Benchmark
+	public List<Book> searchIndex() {
+		Page<Long> ids = searchIndex.search(null, author(), PageRequest.of(0, 20));
+		return repository.findAllById(ids.getContent());
+	}
+
+	private String author() {
+		return Catalog.author(ThreadLocalRandom.current().nextInt(catalogSize));
+	}
+
+}
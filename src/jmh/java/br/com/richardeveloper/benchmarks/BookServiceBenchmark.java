@@ -0,0 +1,113 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.LibraryApiApplication;
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.services.BookSearchIndex;
+import br.com.richardeveloper.services.BookService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookServiceBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	private int catalogSize;
+
+	private ConfigurableApplicationContext context;
+
+	private BookService service;
+
+	private Validator validator;
+
+	private final AtomicInteger created = new AtomicInteger();
+
+	@Setup
+	public void setUp() {
+		context = Catalog.start(LibraryApiApplication.class,
+				"logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+				"logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF");
+		Catalog.seedBooks(context.getBean(JdbcTemplate.class), catalogSize);
+		context.getBean(BookSearchIndex.class).rebuild();
+		service = context.getBean(BookService.class);
+		validator = context.getBean(Validator.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<BookDTO>> validate() {
+		int i = random();
+		return validator.validate(BookDTO.builder().title(Catalog.title(i)).author(Catalog.author(i)).isbn(Catalog.isbn(i)).build());
+	}
+
+	@Benchmark
+	public Book saveNew() {
+		int n = created.incrementAndGet();
+		return service.save(Book.builder().title("Benchmark " + n).author(Catalog.author(n)).isbn("BM-" + n).build());
+	}
+
+	@Benchmark
+	public String saveDuplicateIsbn() {
+		int i = random();
+		try {
+			service.save(Book.builder().title("Duplicate " + created.incrementAndGet()).author(Catalog.author(i)).isbn(Catalog.isbn(i)).build());
+			return null;
+		} catch (BusinessException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Benchmark
+	public Page<Book> findByAuthor() {
+		return service.findByAuthorAndTitle(Book.builder().author(Catalog.author(random())).build(), PageRequest.of(0, 20));
+	}
+
+	@Benchmark
+	public Page<Book> findByTitle() {
+		String title = Catalog.title(random());
+		return service.findByAuthorAndTitle(Book.builder().title(title.substring(0, title.indexOf(','))).build(), PageRequest.of(0, 20));
+	}
+
+	@Benchmark
+	public Page<Book> findByIsbn() {
+		return service.findByAuthorAndTitle(Book.builder().isbn(Catalog.isbn(random())).build(), PageRequest.of(0, 20));
+	}
+
+	private int random() {
+		return ThreadLocalRandom.current().nextInt(catalogSize);
+	}
+
+}
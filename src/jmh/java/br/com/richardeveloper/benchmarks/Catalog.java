@@ -0,0 +1,168 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.repositories.BookRepository;
+
+/**
+ * Deterministic catalog shared by the benchmarks. Titles are three words from
+ * an accented vocabulary plus a volume number (titles are unique), authors
+ * follow a skewed distribution so a few have thousands of books, and isbns
+ * are valid ISBN-13.
+ */
+final class Catalog {
+
+	private static final int BATCH_SIZE = 1_000;
+
+	private static final int AUTHORS = 5_000;
+
+	private static final String INSERT_BOOK = "insert into book (id, title, author, isbn, version) values (next value for book_seq, ?, ?, ?, 0)";
+
+	private static final String INSERT_LOAN = "insert into loan (id, book_id, customer, loan_date, returned) values (next value for loan_seq, ?, ?, ?, true)";
+
+	private static final String[] WORDS = {
+			"jardim", "sombras", "memórias", "cidade", "coração", "viagem", "segredo", "mar", "noite", "estrelas",
+			"história", "tempo", "guerra", "paz", "amor", "sertão", "caminho", "sonho", "ilha", "montanha",
+			"inverno", "verão", "silêncio", "canção", "fogo", "vento", "pedra", "rio", "floresta", "deserto",
+			"rei", "rainha", "herói", "lenda", "império", "código", "algoritmo", "sistemas", "dados", "programação",
+			"arquitetura", "padrões", "design", "java", "spring", "testes", "negócios", "economia", "filosofia", "ciência"
+	};
+
+	private static final String[] FIRST_NAMES = {
+			"Ana", "João", "Maria", "José", "Antônio", "Francisca", "Carlos", "Paulo", "Adriana", "Lucas",
+			"Juliana", "Marcos", "Patrícia", "Luiz", "Fernanda", "Gabriel", "Aline", "Rafael", "Camila", "Daniel",
+			"Robert", "Martin", "Kent", "Joshua", "Brian", "Eric", "Grace", "Linus", "Barbara", "Donald",
+			"Clarice", "Jorge", "Cecília", "Graciliano", "Rachel", "Érico", "Lygia", "Mário", "Hilda", "Ariano",
+			"Agatha", "Stephen", "Ursula", "Isaac", "Arthur", "Virginia", "Gabriela", "Machado", "Olavo", "Carolina"
+	};
+
+	private static final String[] SURNAME_PREFIXES = { "Al", "Bar", "Cas", "Dor", "Fer", "Gal", "Mar", "Nog", "Per", "Ro" };
+
+	private static final String[] SURNAME_SUFFIXES = { "meida", "bosa", "tro", "nelas", "reira", "vão", "tins", "ueira", "ella", "cha" };
+
+	private static final String[] CUSTOMERS = { "Ana", "Bruno", "Carla", "Diego", "Elisa", "Felipe", "Gustavo", "Helena" };
+
+	private Catalog() {
+	}
+
+	static ConfigurableApplicationContext start(Class<?> source, String... properties) {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		return new SpringApplicationBuilder(source)
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+				.run(arguments(properties));
+	}
+
+	static ConfigurableApplicationContext startServer(Class<?> source, String... properties) {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		return new SpringApplicationBuilder(source)
+				.web(WebApplicationType.SERVLET)
+				.logStartupInfo(false)
+				.properties("spring.main.banner-mode=off", "logging.level.root=WARN", "server.port=0")
+				.run(arguments(properties));
+	}
+
+	/*
+	 * Passed as command line arguments because builder properties are only
+	 * defaults and would lose to application.properties.
+	 */
+	private static String[] arguments(String... properties) {
+		String[] arguments = new String[properties.length];
+		for(int i = 0; i < properties.length; i++) {
+			arguments[i] = "--" + properties[i];
+		}
+		return arguments;
+	}
+
+	static void seedBooks(JdbcTemplate jdbc, int size) {
+		List<Object[]> batch = new ArrayList<Object[]>(BATCH_SIZE);
+		for(int i = 0; i < size; i++) {
+			batch.add(new Object[] { title(i), author(i), isbn(i) });
+			if(batch.size() == BATCH_SIZE) {
+				jdbc.batchUpdate(INSERT_BOOK, batch);
+				batch.clear();
+			}
+		}
+		if(!batch.isEmpty()) {
+			jdbc.batchUpdate(INSERT_BOOK, batch);
+		}
+	}
+
+	/**
+	 * Adds {@code perBook} returned loans to every book, spread over the last
+	 * two years.
+	 */
+	static void seedLoans(JdbcTemplate jdbc, int perBook) {
+		List<Long> bookIds = jdbc.queryForList("select id from book order by id", Long.class);
+		LocalDate today = LocalDate.now();
+		List<Object[]> batch = new ArrayList<Object[]>(BATCH_SIZE);
+		for(int i = 0; i < bookIds.size(); i++) {
+			for(int j = 0; j < perBook; j++) {
+				int n = i * perBook + j;
+				batch.add(new Object[] { bookIds.get(i), CUSTOMERS[n % CUSTOMERS.length], Date.valueOf(today.minusDays(mix(n) % 730)) });
+				if(batch.size() == BATCH_SIZE) {
+					jdbc.batchUpdate(INSERT_LOAN, batch);
+					batch.clear();
+				}
+			}
+		}
+		if(!batch.isEmpty()) {
+			jdbc.batchUpdate(INSERT_LOAN, batch);
+		}
+	}
+
+	@Configuration
+	@EnableAutoConfiguration
+	@EntityScan(basePackageClasses = Book.class)
+	@EnableJpaRepositories(basePackageClasses = BookRepository.class)
+	static class Repositories {
+	}
+
+	static String title(int i) {
+		long h = mix(i);
+		String first = WORDS[(int) (h % WORDS.length)];
+		return Character.toUpperCase(first.charAt(0)) + first.substring(1)
+				+ " " + WORDS[(int) ((h >>> 16) % WORDS.length)]
+				+ " " + WORDS[(int) ((h >>> 32) % WORDS.length)]
+				+ ", vol. " + (i + 1);
+	}
+
+	static String author(int i) {
+		double x = (mix(i) >>> 11) * 0x1.0p-53;
+		int a = (int) (AUTHORS * x * x);
+		return FIRST_NAMES[a % FIRST_NAMES.length]
+				+ " " + SURNAME_PREFIXES[(a / FIRST_NAMES.length) % SURNAME_PREFIXES.length]
+				+ SURNAME_SUFFIXES[(a / (FIRST_NAMES.length * SURNAME_PREFIXES.length)) % SURNAME_SUFFIXES.length];
+	}
+
+	static String isbn(int i) {
+		String digits = String.format("978%09d", i);
+		int sum = 0;
+		for(int d = 0; d < digits.length(); d++) {
+			sum += (digits.charAt(d) - '0') * (d % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+
+	private static long mix(long i) {
+		long z = i * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (z ^ (z >>> 31)) & Long.MAX_VALUE;
+	}
+
+}
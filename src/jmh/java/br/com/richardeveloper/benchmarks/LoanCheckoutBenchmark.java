@@ -0,0 +1,109 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.LibraryApiApplication;
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.services.BookService;
+import br.com.richardeveloper.services.LoanService;
+
+/**
+ * Checkout as LoanController does it, isbn lookup through BookService then
+ * LoanService against a catalog with two returned loans per
+ * book. Open loans are returned before every iteration so the uncontended
+ * benchmarks keep hitting available books (an iteration that outruns the
+ * catalog measures rejections from then on), while the contended one makes
+ * eight threads fight over sixteen books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LoanCheckoutBenchmark {
+
+	private static final int CONTENDED_BOOKS = 16;
+
+	@Param({ "10000", "100000" })
+	private int catalogSize;
+
+	private ConfigurableApplicationContext context;
+
+	private JdbcTemplate jdbc;
+
+	private BookService bookService;
+
+	private LoanService service;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	@Setup
+	public void setUp() {
+		context = Catalog.start(LibraryApiApplication.class);
+		jdbc = context.getBean(JdbcTemplate.class);
+		Catalog.seedBooks(jdbc, catalogSize);
+		Catalog.seedLoans(jdbc, 2);
+		bookService = context.getBean(BookService.class);
+		service = context.getBean(LoanService.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void returnLoans() {
+		jdbc.update("update loan set returned = true where returned = false");
+		next.set(0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Loan checkout() {
+		return checkout(Math.floorMod(next.getAndIncrement(), catalogSize));
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Loan checkoutParallel() {
+		return checkout(Math.floorMod(next.getAndIncrement(), catalogSize));
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Loan checkoutContended() {
+		return checkout(Math.floorMod(next.getAndIncrement(), CONTENDED_BOOKS));
+	}
+
+	private Loan checkout(int i) {
+		try {
+			Book book = bookService.findByIsbn(Catalog.isbn(i)).get();
+			return service.save(Loan.builder().book(book).customer("Benchmark").loanDate(LocalDate.now()).build());
+		} catch (BusinessException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.models.mappers.BookMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+	@Param({ "1", "20", "100" })
+	private int pageSize;
+
+	private ModelMapper modelMapper;
+
+	private BookMapper bookMapper;
+
+	private BookDTO dto;
+
+	private Book book;
+
+	private Page<Book> page;
+
+	@Setup
+	public void setUp() {
+		modelMapper = new ModelMapper();
+		bookMapper = new BookMapper();
+		dto = BookDTO.builder().author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+		book = Book.builder().id(1L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+
+		List<Book> books = new ArrayList<Book>(pageSize);
+		for(long i = 0; i < pageSize; i++) {
+			books.add(Book.builder().id(i).author("Author " + i).title("Title " + i).isbn("isbn-" + i).build());
+		}
+		page = new PageImpl<Book>(books, PageRequest.of(0, pageSize), 10_000);
+	}
+
+	@Benchmark
+	public Book modelMapperToEntity() {
+		return modelMapper.map(dto, Book.class);
+	}
+
+	@Benchmark
+	public Book bookMapperToEntity() {
+		return bookMapper.toEntity(dto);
+	}
+
+	@Benchmark
+	public BookDTO modelMapperToDto() {
+		return modelMapper.map(book, BookDTO.class);
+	}
+
+	@Benchmark
+	public BookDTO bookMapperToDto() {
+		return bookMapper.toDto(book);
+	}
+
+	@Benchmark
+	public Page<BookDTO> modelMapperPage() {
+		return page.map(b -> modelMapper.map(b, BookDTO.class));
+	}
+
+	@Benchmark
+	public Page<BookDTO> bookMapperPage() {
+		return bookMapper.toDtoPage(page);
+	}
+
+}
@@ -0,0 +1,112 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.LibraryApiApplication;
+import br.com.richardeveloper.services.BookSearchIndex;
+
+/**
+ * BookController over HTTP with the default settings and with the prod
+ * profile (open-in-view off, pool sized from cores, H2 query cache, ordered
+ * batches, padded IN clauses). Bulkheads are off so only the datasource and
+ * Hibernate settings differ.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(64)
+public class ProductionProfileBenchmark {
+
+	@Param({ "100000" })
+	private int catalogSize;
+
+	@Param({ "default", "prod" })
+	private String profile;
+
+	private ConfigurableApplicationContext context;
+
+	private HttpClient client;
+
+	private String server;
+
+	private List<Long> ids;
+
+	@Setup
+	public void setUp() {
+		context = Catalog.startServer(LibraryApiApplication.class,
+				"spring.profiles.active=" + profile,
+				"server.port=0",
+				"library.bulkhead.enabled=false");
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		Catalog.seedBooks(jdbc, catalogSize);
+		context.getBean(BookSearchIndex.class).rebuild();
+		ids = jdbc.queryForList("select id from book", Long.class);
+		server = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String findById() throws Exception {
+		return get("/api/books/" + randomId());
+	}
+
+	@Benchmark
+	public String searchByAuthor() throws Exception {
+		return get("/api/books?author=" + author());
+	}
+
+	@Benchmark
+	public String searchFields() throws Exception {
+		return get("/api/books?fields=id,title&author=" + author());
+	}
+
+	private String get(String path) throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(server + path)).build(), BodyHandlers.ofString());
+		if(response.statusCode() != 200) {
+			throw new IllegalStateException(path + " returned " + response.statusCode());
+		}
+		return response.body();
+	}
+
+	private Long randomId() {
+		return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+	}
+
+	private String author() {
+		String author = Catalog.author(ThreadLocalRandom.current().nextInt(catalogSize));
+		return author.substring(author.indexOf(' ') + 1);
+	}
+
+}
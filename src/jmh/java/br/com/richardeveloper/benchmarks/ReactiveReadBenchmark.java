@@ -0,0 +1,118 @@
+package br.com.richardeveloper.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.com.richardeveloper.LibraryApiApplication;
+import br.com.richardeveloper.reactive.ReactiveBookServer;
+import br.com.richardeveloper.services.BookSearchIndex;
+
+/**
+ * HTTP load against the same application serving both stacks: Tomcat with
+ * BookController and the Reactor Netty read routes. Bulkheads are off so the
+ * servlet side is limited only by its worker pool. Each JMH thread is one
+ * client issuing requests back to back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(256)
+public class ReactiveReadBenchmark {
+
+	@Param({ "100000" })
+	private int catalogSize;
+
+	private ConfigurableApplicationContext context;
+
+	private HttpClient client;
+
+	private String servlet;
+
+	private String reactive;
+
+	private List<Long> ids;
+
+	@Setup
+	public void setUp() {
+		context = Catalog.startServer(LibraryApiApplication.class,
+				"library.bulkhead.enabled=false",
+				"library.reactive.enabled=true",
+				"library.reactive.port=0");
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		Catalog.seedBooks(jdbc, catalogSize);
+		context.getBean(BookSearchIndex.class).rebuild();
+		ids = jdbc.queryForList("select id from book", Long.class);
+		servlet = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		reactive = "http://localhost:" + context.getBean(ReactiveBookServer.class).getPort();
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String servletFindById() throws Exception {
+		return get(servlet + "/api/books/" + randomId());
+	}
+
+	@Benchmark
+	public String reactiveFindById() throws Exception {
+		return get(reactive + "/api/books/" + randomId());
+	}
+
+	@Benchmark
+	public String servletSearch() throws Exception {
+		return get(servlet + "/api/books?author=" + author());
+	}
+
+	@Benchmark
+	public String reactiveSearch() throws Exception {
+		return get(reactive + "/api/books?author=" + author());
+	}
+
+	private String get(String uri) throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(uri)).build(), BodyHandlers.ofString());
+		if(response.statusCode() != 200) {
+			throw new IllegalStateException(uri + " returned " + response.statusCode());
+		}
+		return response.body();
+	}
+
+	private Long randomId() {
+		return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+	}
+
+	private String author() {
+		String author = Catalog.author(ThreadLocalRandom.current().nextInt(catalogSize));
+		return author.substring(author.indexOf(' ') + 1);
+	}
+
+}
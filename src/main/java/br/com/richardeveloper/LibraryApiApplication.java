@@ -1,16 +1,24 @@
 package br.com.richardeveloper;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 
-@SpringBootApplication
+import br.com.richardeveloper.models.mappers.BookMapper;
+import br.com.richardeveloper.models.mappers.LoanMapper;
+
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class LibraryApiApplication {
 
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public BookMapper bookMapper() {
+		return new BookMapper();
+	}
+
+	@Bean
+	public LoanMapper loanMapper() {
+		return new LoanMapper();
 	}
 	
 	public static void main(String[] args) {
@@ -0,0 +1,80 @@
+package br.com.richardeveloper.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many requests of one kind run at once. Up to {@code maxQueued}
+ * callers may wait {@code maxWait} for a slot; anyone beyond that is turned
+ * away immediately instead of occupying a servlet thread.
+ */
+public class Bulkhead {
+
+	private final String name;
+
+	private final int maxConcurrent;
+
+	private final int maxQueued;
+
+	private final long maxWaitNanos;
+
+	private final Semaphore permits;
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	public Bulkhead(String name, int maxConcurrent, int maxQueued, Duration maxWait) {
+		this.name = name;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueued = maxQueued;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.permits = new Semaphore(maxConcurrent);
+	}
+
+	public boolean tryAcquire() {
+		if(permits.tryAcquire()) {
+			return true;
+		}
+		if(queued.incrementAndGet() > maxQueued) {
+			queued.decrementAndGet();
+			rejected.incrementAndGet();
+			return false;
+		}
+		try {
+			if(permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+				return true;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			queued.decrementAndGet();
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getActive() {
+		return maxConcurrent - permits.availablePermits();
+	}
+
+	public int getQueued() {
+		return queued.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+}
@@ -0,0 +1,56 @@
+package br.com.richardeveloper.bulkhead;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import br.com.richardeveloper.bulkhead.BulkheadProperties.Limits;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(BulkheadProperties.class)
+@ConditionalOnProperty(name = "library.bulkhead.enabled", havingValue = "true")
+public class BulkheadConfiguration implements WebMvcConfigurer, MeterBinder {
+
+	private final Bulkhead reads;
+
+	private final Bulkhead searches;
+
+	private final Bulkhead writes;
+
+	public BulkheadConfiguration(BulkheadProperties properties) {
+		this.reads = bulkhead("reads", properties.getReads());
+		this.searches = bulkhead("searches", properties.getSearches());
+		this.writes = bulkhead("writes", properties.getWrites());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new BulkheadInterceptor(reads, searches, writes)).addPathPatterns("/api/**");
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for(Bulkhead bulkhead : new Bulkhead[] { reads, searches, writes }) {
+			Gauge.builder("library.bulkhead.active", bulkhead, Bulkhead::getActive)
+					.tag("bulkhead", bulkhead.getName())
+					.register(registry);
+			Gauge.builder("library.bulkhead.queued", bulkhead, Bulkhead::getQueued)
+					.tag("bulkhead", bulkhead.getName())
+					.register(registry);
+			FunctionCounter.builder("library.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+					.tag("bulkhead", bulkhead.getName())
+					.register(registry);
+		}
+	}
+
+	private static Bulkhead bulkhead(String name, Limits limits) {
+		return new Bulkhead(name, limits.getMaxConcurrent(), limits.getMaxQueued(), limits.getMaxWait());
+	}
+
+}
@@ -0,0 +1,70 @@
+package br.com.richardeveloper.bulkhead;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import br.com.richardeveloper.resources.exceptions.BulkheadFullException;
+
+/**
+ * Routes each API call through the bulkhead of its kind: writes for anything
+ * that is not a GET, reads for GETs addressed by path variable and searches
+ * for the remaining GETs (listings, cursors, exports). Streaming responses keep
+ * their slot until the async dispatch completes.
+ */
+class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String ACQUIRED = BulkheadInterceptor.class.getName() + ".ACQUIRED";
+
+	private final Bulkhead reads;
+
+	private final Bulkhead searches;
+
+	private final Bulkhead writes;
+
+	BulkheadInterceptor(Bulkhead reads, Bulkhead searches, Bulkhead writes) {
+		this.reads = reads;
+		this.searches = searches;
+		this.writes = writes;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if(!(handler instanceof HandlerMethod) || request.getAttribute(ACQUIRED) != null) {
+			return true;
+		}
+		Bulkhead bulkhead = bulkheadFor(request, (HandlerMethod) handler);
+		if(!bulkhead.tryAcquire()) {
+			throw new BulkheadFullException(bulkhead.getName());
+		}
+		request.setAttribute(ACQUIRED, bulkhead);
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Bulkhead bulkhead = (Bulkhead) request.getAttribute(ACQUIRED);
+		if(bulkhead != null) {
+			request.removeAttribute(ACQUIRED);
+			bulkhead.release();
+		}
+	}
+
+	Bulkhead bulkheadFor(HttpServletRequest request, HandlerMethod handler) {
+		if(!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+			return writes;
+		}
+		for(MethodParameter parameter : handler.getMethodParameters()) {
+			if(parameter.hasParameterAnnotation(PathVariable.class)) {
+				return reads;
+			}
+		}
+		return searches;
+	}
+
+}
@@ -0,0 +1,41 @@
+package br.com.richardeveloper.bulkhead;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties("library.bulkhead")
+public class BulkheadProperties {
+
+	private boolean enabled;
+
+	private Limits reads = new Limits(64, 64, Duration.ofMillis(100));
+
+	private Limits searches = new Limits(16, 16, Duration.ofMillis(50));
+
+	private Limits writes = new Limits(32, 32, Duration.ofMillis(100));
+
+	@Data
+	public static class Limits {
+
+		private int maxConcurrent;
+
+		private int maxQueued;
+
+		private Duration maxWait;
+
+		public Limits() {
+		}
+
+		public Limits(int maxConcurrent, int maxQueued, Duration maxWait) {
+			this.maxConcurrent = maxConcurrent;
+			this.maxQueued = maxQueued;
+			this.maxWait = maxWait;
+		}
+
+	}
+
+}
@@ -1,50 +1,152 @@
 package br.com.richardeveloper.controllers;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookBulkRequest;
+import br.com.richardeveloper.models.dto.BookBulkResult;
 import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.models.dto.BookImportReport;
+import br.com.richardeveloper.models.dto.BookLookupRequest;
+import br.com.richardeveloper.models.dto.BookLookupResult;
+import br.com.richardeveloper.models.dto.BookSlice;
+import br.com.richardeveloper.models.mappers.BookMapper;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.services.BookImportService;
 import br.com.richardeveloper.services.BookService;
+import br.com.richardeveloper.services.IdempotencyStore;
 
 @RestController
 @RequestMapping(value = "/api/books")
 public class BookController {
 
+	private static final int MAX_SLICE_SIZE = 2000;
+
+	private static final int MAX_LOOKUP_SIZE = 1000;
+
+	private static final int MAX_BULK_SIZE = 100_000;
+
+	private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
 	private BookService service;
 
-	private ModelMapper modelMapper;
+	private BookMapper mapper;
 
-	public BookController(BookService service, ModelMapper modelMapper) {
+	private BookImportService importService;
+
+	private ObjectMapper objectMapper;
+
+	private IdempotencyStore idempotency;
+
+	private String cacheControl;
+
+	private String searchCacheControl;
+
+	public BookController(BookService service, BookMapper mapper, BookImportService importService, ObjectMapper objectMapper,
+			IdempotencyStore idempotency,
+			@Value("${library.books.cache-control:no-cache}") String cacheControl,
+			@Value("${library.books.search-cache-control:no-cache}") String searchCacheControl) {
 		this.service = service;
-		this.modelMapper = modelMapper;
+		this.mapper = mapper;
+		this.importService = importService;
+		this.objectMapper = objectMapper;
+		this.idempotency = idempotency;
+		this.cacheControl = cacheControl;
+		this.searchCacheControl = searchCacheControl;
 	}
 
 	@PostMapping
-	public ResponseEntity<BookDTO> save(@RequestBody @Valid BookDTO dto) {
-		Book entity = modelMapper.map(dto, Book.class);
-		entity = service.save(entity);
-		return new ResponseEntity<BookDTO>(modelMapper.map(entity, BookDTO.class), HttpStatus.CREATED);
+	public ResponseEntity<BookDTO> save(@RequestBody @Valid BookDTO dto,
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+		return idempotency.execute("books", idempotencyKey, dto, BookDTO.class, () -> {
+			Book entity = mapper.toEntity(dto);
+			entity = service.save(entity);
+			return new ResponseEntity<BookDTO>(mapper.toDto(entity), HttpStatus.CREATED);
+		});
+	}
+	
+	@PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<BookImportReport> saveAll(HttpServletRequest request) throws IOException {
+		try (MappingIterator<BookDTO> books = objectMapper.readerFor(BookDTO.class).readValues(request.getInputStream())) {
+			BookImportReport report = importService.importBooks(new BookDTOIterator(books));
+			return new ResponseEntity<BookImportReport>(report, HttpStatus.OK);
+		}
+	}
+	
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+		boolean csv = "csv".equalsIgnoreCase(format);
+		if(!csv && !"ndjson".equalsIgnoreCase(format)) {
+			throw new BusinessException("Formato deve ser ndjson ou csv.");
+		}
+		StreamingResponseBody body = out -> {
+			try (BookExportWriter writer = csv ? BookExportWriter.csv(out) : BookExportWriter.ndjson(objectMapper, out)) {
+				service.exportAll(book -> writer.writeUnchecked(mapper.toDto(book)));
+			}
+		};
+		return ResponseEntity.ok()
+				.contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + (csv ? "csv" : "ndjson"))
+				.body(body);
 	}
 	
 	@GetMapping("/{id}")
-	public ResponseEntity<BookDTO> findById(@PathVariable Long id) {
+	public ResponseEntity<BookDTO> findById(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		if(ifNoneMatch != null) {
+			Optional<Long> version = service.findVersionById(id);
+			if(version.isPresent() && BookETags.matches(ifNoneMatch, BookETags.of(version.get()))) {
+				return notModified(BookETags.of(version.get()), cacheControl);
+			}
+		}
 		Book book = service.findById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-		return new ResponseEntity<BookDTO>(modelMapper.map(book, BookDTO.class), HttpStatus.OK);
+		return ok(mapper.toDto(book), BookETags.of(book.getVersion()), cacheControl);
+	}
+	
+	@GetMapping(params = { "ids", "!cursor", "!fields" })
+	public ResponseEntity<List<BookLookupResult>> findAllById(@RequestParam List<Long> ids) {
+		return ok(resolve(BookLookupRequest.builder().ids(ids).build()), null, cacheControl);
+	}
+	
+	@PostMapping("/lookup")
+	public ResponseEntity<List<BookLookupResult>> lookup(@RequestBody BookLookupRequest request) {
+		return new ResponseEntity<List<BookLookupResult>>(resolve(request), HttpStatus.OK);
 	}
 	
 	@DeleteMapping("/{id}")
@@ -54,27 +156,157 @@ public class BookController {
 		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
 	}
 	
+	@PostMapping("/bulk-delete")
+	public ResponseEntity<BookBulkResult> deleteAll(@RequestBody BookBulkRequest request) {
+		List<Long> ids = bulkIds(request);
+		int deleted = service.deleteAllById(ids);
+		return new ResponseEntity<BookBulkResult>(BookBulkResult.builder().requested(ids.size()).affected(deleted).build(), HttpStatus.OK);
+	}
+	
+	@PatchMapping
+	public ResponseEntity<BookBulkResult> updateAll(@RequestBody BookBulkRequest request) {
+		List<Long> ids = bulkIds(request);
+		int updated = service.updateAuthor(ids, request.getAuthor());
+		return new ResponseEntity<BookBulkResult>(BookBulkResult.builder().requested(ids.size()).affected(updated).build(), HttpStatus.OK);
+	}
+	
 	@PutMapping("/{id}")
 	public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody BookDTO dto) {
 		return service.findById(id)
 				.map(book -> { 
 					book.setAuthor(dto.getAuthor());
-					book.setTitle(dto.getAuthor());
+					book.setTitle(dto.getTitle());
 					book = service.update(book);
-					return new ResponseEntity<BookDTO>(modelMapper.map(book, BookDTO.class), HttpStatus.OK);
+					return new ResponseEntity<BookDTO>(mapper.toDto(book), HttpStatus.OK);
 					}
 				)
 				.orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 	}
 	
+	@PatchMapping("/{id}")
+	public ResponseEntity<Void> patch(@PathVariable Long id, @RequestBody BookDTO dto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		if(ifMatch == null) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED);
+		}
+		Long version = service.patch(id, BookETags.version(ifMatch), mapper.toEntity(dto))
+				.orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		return ResponseEntity.noContent().eTag(BookETags.of(version)).build();
+	}
+	
 	@GetMapping
-	public ResponseEntity<Page<BookDTO>> findByAuthorAndTitle(BookDTO dto, Pageable pageable){
-		Book entity = modelMapper.map(dto, Book.class);
+	public ResponseEntity<Page<BookDTO>> findByAuthorAndTitle(BookDTO dto, Pageable pageable,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+		Book entity = mapper.toEntity(dto);
 		Page<Book> result = service.findByAuthorAndTitle(entity, pageable);
-//		List<BookDTO> list = result.getContent().stream().map(book -> modelMapper.map(book, BookDTO.class)).collect(Collectors.toList());
-//		Page<BookDTO> resultDTO = new PageImpl<BookDTO>(list, pageable, result.getTotalElements());
-		Page<BookDTO> resultDTO = result.map(book -> modelMapper.map(book, BookDTO.class));
-		return new ResponseEntity<Page<BookDTO>>(resultDTO, HttpStatus.OK);
+		String etag = BookETags.of(result.getContent(), result.getTotalElements(), pageable.getOffset(), pageable.getPageSize());
+		if(BookETags.matches(ifNoneMatch, etag)) {
+			return notModified(etag, searchCacheControl);
+		}
+		Page<BookDTO> resultDTO = mapper.toDtoPage(result);
+		return ok(resultDTO, etag, searchCacheControl);
+	}
+	
+	@GetMapping(params = { "fields", "!cursor" })
+	public ResponseEntity<Page<Map<String, Object>>> findFieldsByAuthorAndTitle(BookDTO dto, @RequestParam List<String> fields,
+			Pageable pageable) {
+		Page<Map<String, Object>> result = service.findByAuthorAndTitle(mapper.toEntity(dto), new LinkedHashSet<String>(fields), pageable);
+		return ok(result, null, searchCacheControl);
+	}
+	
+	@GetMapping(params = "cursor")
+	public ResponseEntity<BookSlice> findByAuthorAndTitle(BookDTO dto, @RequestParam String cursor,
+			@RequestParam(defaultValue = "20") int size,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		if(size < 1 || size > MAX_SLICE_SIZE) {
+			throw new BusinessException("Tamanho deve estar entre 1 e " + MAX_SLICE_SIZE + ".");
+		}
+		Slice<Book> result = service.findByAuthorAndTitle(mapper.toEntity(dto), decodeCursor(cursor), size);
+		String etag = BookETags.of(result.getContent(), size, result.hasNext() ? 1 : 0);
+		if(BookETags.matches(ifNoneMatch, etag)) {
+			return notModified(etag, searchCacheControl);
+		}
+		BookSlice slice = BookSlice.builder()
+				.content(mapper.toDtoList(result.getContent()))
+				.size(size)
+				.hasNext(result.hasNext())
+				.nextCursor(result.hasNext() ? encodeCursor(result.getContent().get(result.getNumberOfElements() - 1).getId()) : null)
+				.build();
+		return ok(slice, etag, searchCacheControl);
+	}
+	
+	private List<BookLookupResult> resolve(BookLookupRequest request) {
+		List<Long> ids = request.getIds() == null ? Collections.emptyList() : request.getIds();
+		List<String> isbns = request.getIsbns() == null ? Collections.emptyList() : request.getIsbns();
+		if(ids.size() + isbns.size() > MAX_LOOKUP_SIZE) {
+			throw new BusinessException("Informe no máximo " + MAX_LOOKUP_SIZE + " ids ou isbns.");
+		}
+		if(ids.contains(null) || isbns.contains(null)) {
+			throw new BusinessException("Ids e isbns não podem ser nulos.");
+		}
+		List<BookLookupResult> results = new ArrayList<BookLookupResult>(ids.size() + isbns.size());
+		if(!ids.isEmpty()) {
+			Map<Long, Book> found = service.findAllById(new LinkedHashSet<Long>(ids));
+			ids.forEach(id -> results.add(lookupResult(found.get(id)).id(id).build()));
+		}
+		if(!isbns.isEmpty()) {
+			Map<String, Book> found = service.findAllByIsbn(new LinkedHashSet<String>(isbns));
+			isbns.forEach(isbn -> results.add(lookupResult(found.get(isbn)).isbn(isbn).build()));
+		}
+		return results;
+	}
+	
+	private List<Long> bulkIds(BookBulkRequest request) {
+		List<Long> ids = request.getIds();
+		if(ids == null || ids.isEmpty() || ids.size() > MAX_BULK_SIZE) {
+			throw new BusinessException("Informe entre 1 e " + MAX_BULK_SIZE + " ids.");
+		}
+		if(ids.contains(null)) {
+			throw new BusinessException("Ids não podem ser nulos.");
+		}
+		return ids;
+	}
+	
+	private BookLookupResult.BookLookupResultBuilder lookupResult(Book book) {
+		return BookLookupResult.builder().found(book != null).book(book == null ? null : mapper.toDto(book));
+	}
+	
+	private <T> ResponseEntity<T> ok(T body, String etag, String cacheControl) {
+		return ResponseEntity.ok().headers(cacheHeaders(etag, cacheControl)).body(body);
+	}
+	
+	private <T> ResponseEntity<T> notModified(String etag, String cacheControl) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(cacheHeaders(etag, cacheControl)).build();
+	}
+	
+	private HttpHeaders cacheHeaders(String etag, String cacheControl) {
+		HttpHeaders headers = new HttpHeaders();
+		if(etag != null) {
+			headers.setETag(etag);
+		}
+		if(!cacheControl.isEmpty()) {
+			headers.setCacheControl(cacheControl);
+		}
+		return headers;
+	}
+	
+	private String encodeCursor(Long id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(("id:" + id).getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private Long decodeCursor(String cursor) {
+		if(cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if(!value.startsWith("id:")) {
+				throw new IllegalArgumentException(value);
+			}
+			return Long.valueOf(value.substring(3));
+		} catch (IllegalArgumentException e) {
+			throw new BusinessException("Cursor inválido.");
+		}
 	}
 	
 }
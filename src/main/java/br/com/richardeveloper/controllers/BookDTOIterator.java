@@ -0,0 +1,43 @@
+package br.com.richardeveloper.controllers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+class BookDTOIterator implements Iterator<BookDTO> {
+
+	private MappingIterator<BookDTO> books;
+
+	BookDTOIterator(MappingIterator<BookDTO> books) {
+		this.books = books;
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return books.hasNextValue();
+		} catch (JsonProcessingException e) {
+			throw new BusinessException("Conteúdo inválido: " + e.getOriginalMessage());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public BookDTO next() {
+		try {
+			return books.nextValue();
+		} catch (JsonProcessingException e) {
+			throw new BusinessException("Conteúdo inválido: " + e.getOriginalMessage());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package br.com.richardeveloper.controllers;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+/**
+ * Strong ETags for book representations. A single book is tagged with its
+ * version; a page or slice with a hash of the ids and versions it holds plus
+ * its position, so any edit, insert or delete that changes the listing
+ * changes the tag.
+ */
+final class BookETags {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private BookETags() {
+	}
+
+	static String of(Long version) {
+		return version == null ? null : "\"" + version + "\"";
+	}
+
+	static String of(List<Book> books, long... position) {
+		long hash = FNV_OFFSET;
+		for(Book book : books) {
+			hash = mix(hash, book.getId() == null ? -1L : book.getId());
+			hash = mix(hash, book.getVersion() == null ? -1L : book.getVersion());
+		}
+		for(long value : position) {
+			hash = mix(hash, value);
+		}
+		return "\"" + Long.toHexString(hash) + "\"";
+	}
+
+	/*
+	 * The version a write is conditioned on, or null for "*". Weak tags and
+	 * list tags never identify a single version, so they are rejected.
+	 */
+	static Long version(String ifMatch) {
+		String tag = ifMatch.trim();
+		if(tag.equals("*")) {
+			return null;
+		}
+		if(tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+			try {
+				return Long.valueOf(tag.substring(1, tag.length() - 1));
+			} catch (NumberFormatException e) {
+				// falls through to the rejection below
+			}
+		}
+		throw new BusinessException(HttpHeaders.IF_MATCH + " deve conter a ETag atual do livro.");
+	}
+
+	static boolean matches(String ifNoneMatch, String etag) {
+		if(ifNoneMatch == null || etag == null) {
+			return false;
+		}
+		for(String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if(tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if(tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long mix(long hash, long value) {
+		for(int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+			hash ^= (value >>> shift) & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+}
@@ -0,0 +1,90 @@
+package br.com.richardeveloper.controllers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.richardeveloper.models.dto.BookDTO;
+
+abstract class BookExportWriter implements AutoCloseable {
+
+	static BookExportWriter ndjson(ObjectMapper objectMapper, OutputStream out) throws IOException {
+		ObjectWriter objectWriter = objectMapper.writerFor(BookDTO.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+		generator.setRootValueSeparator(null);
+		return new BookExportWriter() {
+
+			@Override
+			void write(BookDTO book) throws IOException {
+				objectWriter.writeValue(generator, book);
+				generator.writeRaw('\n');
+			}
+
+			@Override
+			public void close() throws IOException {
+				generator.close();
+			}
+		};
+	}
+
+	static BookExportWriter csv(OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		writer.write("id,title,author,isbn\n");
+		return new BookExportWriter() {
+
+			@Override
+			void write(BookDTO book) throws IOException {
+				writer.write(String.valueOf(book.getId()));
+				writer.write(',');
+				writeField(book.getTitle());
+				writer.write(',');
+				writeField(book.getAuthor());
+				writer.write(',');
+				writeField(book.getIsbn());
+				writer.write('\n');
+			}
+
+			private void writeField(String value) throws IOException {
+				if(value == null) {
+					return;
+				}
+				if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+					writer.write(value);
+					return;
+				}
+				writer.write('"');
+				writer.write(value.replace("\"", "\"\""));
+				writer.write('"');
+			}
+
+			@Override
+			public void close() throws IOException {
+				writer.close();
+			}
+		};
+	}
+
+	abstract void write(BookDTO book) throws IOException;
+
+	void writeUnchecked(BookDTO book) {
+		try {
+			write(book);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public abstract void close() throws IOException;
+
+}
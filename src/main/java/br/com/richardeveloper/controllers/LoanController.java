@@ -1,45 +1,138 @@
 package br.com.richardeveloper.controllers;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import br.com.richardeveloper.models.Book;
 import br.com.richardeveloper.models.Loan;
 import br.com.richardeveloper.models.dto.LoanDTO;
+import br.com.richardeveloper.models.dto.LoanSlice;
+import br.com.richardeveloper.models.mappers.LoanMapper;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
 import br.com.richardeveloper.services.BookService;
+import br.com.richardeveloper.services.IdempotencyStore;
 import br.com.richardeveloper.services.LoanService;
 
 @RestController
 @RequestMapping(value = "api/loans")
 public class LoanController {
 
+	private static final int MAX_SLICE_SIZE = 2000;
+
 	private LoanService loanService;
 
 	private BookService bookService;
 	
-	private ModelMapper modelMapper;
+	private LoanMapper mapper;
+	
+	private IdempotencyStore idempotency;
 	
 	@Autowired	
-	public LoanController(LoanService loanService, BookService bookService, ModelMapper modelMapper) {
+	public LoanController(LoanService loanService, BookService bookService, LoanMapper mapper, IdempotencyStore idempotency) {
 		this.loanService = loanService;
 		this.bookService = bookService;
-		this.modelMapper = modelMapper;
+		this.mapper = mapper;
+		this.idempotency = idempotency;
 	}
 	
 	@PostMapping
-	public ResponseEntity<LoanDTO> save(@RequestBody LoanDTO dto){
-		Book book = bookService.findByIsbn(dto.getIsbn()).get();
-		Loan entity = Loan.builder().book(book).customer(dto.getCustomer()).loanDate(LocalDate.now()).build();
-		entity = loanService.save(entity);
-		return new ResponseEntity<LoanDTO>(modelMapper.map(entity, LoanDTO.class), HttpStatus.CREATED);
+	public ResponseEntity<LoanDTO> save(@RequestBody LoanDTO dto,
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+		return idempotency.execute("loans", idempotencyKey, dto, LoanDTO.class, () -> {
+			Book book = bookService.findByIsbn(dto.getIsbn())
+					.orElseThrow( () -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
+			Loan entity = mapper.toEntity(dto, book);
+			entity = loanService.save(entity);
+			return new ResponseEntity<LoanDTO>(mapper.toDto(entity), HttpStatus.CREATED);
+		});
+	}
+	
+	@PostMapping("{id}/return")
+	public ResponseEntity<Void> returnLoan(@PathVariable Long id) {
+		if(!loanService.returnLoan(id)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+	
+	@GetMapping("history")
+	public ResponseEntity<LoanSlice> findHistory(@RequestParam(required = false) String customer,
+			@RequestParam(required = false) String isbn,
+			@RequestParam(defaultValue = "") String cursor, @RequestParam(defaultValue = "20") int size) {
+		if((customer == null) == (isbn == null)) {
+			throw new BusinessException("Informe o cliente ou o isbn.");
+		}
+		if(size < 1 || size > MAX_SLICE_SIZE) {
+			throw new BusinessException("Tamanho deve estar entre 1 e " + MAX_SLICE_SIZE + ".");
+		}
+		Long bookId = null;
+		if(isbn != null) {
+			bookId = bookService.findByIsbn(isbn)
+					.orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND)).getId();
+		}
+		return new ResponseEntity<LoanSlice>(slice(loanService.findHistory(customer, bookId, decodeCursor(cursor), size), size), HttpStatus.OK);
+	}
+	
+	@GetMapping("late")
+	public ResponseEntity<LoanSlice> findLate(@RequestParam(defaultValue = "${library.loans.late.days:14}") int days,
+			@RequestParam(defaultValue = "") String cursor, @RequestParam(defaultValue = "20") int size) {
+		if(days < 0) {
+			throw new BusinessException("Dias deve ser maior ou igual a 0.");
+		}
+		if(size < 1 || size > MAX_SLICE_SIZE) {
+			throw new BusinessException("Tamanho deve estar entre 1 e " + MAX_SLICE_SIZE + ".");
+		}
+		Slice<Loan> result = loanService.findLate(LocalDate.now().minusDays(days), decodeCursor(cursor), size);
+		return new ResponseEntity<LoanSlice>(slice(result, size), HttpStatus.OK);
+	}
+	
+	private LoanSlice slice(Slice<Loan> result, int size) {
+		return LoanSlice.builder()
+				.content(mapper.toDtoList(result.getContent()))
+				.size(size)
+				.hasNext(result.hasNext())
+				.nextCursor(result.hasNext() ? encodeCursor(result.getContent().get(result.getNumberOfElements() - 1)) : null)
+				.build();
+	}
+	
+	private String encodeCursor(Loan loan) {
+		String value = loan.getLoanDate() + ":" + loan.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private Loan decodeCursor(String cursor) {
+		if(cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = value.indexOf(':');
+			if(separator < 0) {
+				throw new IllegalArgumentException(value);
+			}
+			return Loan.builder()
+					.loanDate(LocalDate.parse(value.substring(0, separator)))
+					.id(Long.valueOf(value.substring(separator + 1)))
+					.build();
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new BusinessException("Cursor inválido.");
+		}
 	}
 	
 }
@@ -0,0 +1,27 @@
+package br.com.richardeveloper.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes the Hikari pools from the number of cores,
+ * {@code cores * connections-per-core + spindles}, unless a
+ * {@code maximum-pool-size} is configured explicitly.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "library.datasource.pool.size-from-cores", havingValue = "true")
+public class PoolSizingConfiguration {
+
+	@Bean
+	static PoolSizingPostProcessor poolSizingPostProcessor(Environment environment) {
+		int connectionsPerCore = environment.getProperty("library.datasource.pool.connections-per-core", Integer.class, 2);
+		int spindles = environment.getProperty("library.datasource.pool.spindles", Integer.class, 1);
+		int size = Runtime.getRuntime().availableProcessors() * connectionsPerCore + spindles;
+		return new PoolSizingPostProcessor(size,
+				!environment.containsProperty("spring.datasource.hikari.maximum-pool-size"),
+				!environment.containsProperty("library.datasource.replica.maximum-pool-size"));
+	}
+
+}
@@ -0,0 +1,47 @@
+package br.com.richardeveloper.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Applies the computed pool size to the primary pool, whether it is the
+ * auto-configured Hikari bean or the primary half of a
+ * {@link ReadReplicaDataSource}, and to the replica pool.
+ */
+class PoolSizingPostProcessor implements BeanPostProcessor {
+
+	private final int size;
+
+	private final boolean sizePrimary;
+
+	private final boolean sizeReplica;
+
+	PoolSizingPostProcessor(int size, boolean sizePrimary, boolean sizeReplica) {
+		this.size = size;
+		this.sizePrimary = sizePrimary;
+		this.sizeReplica = sizeReplica;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if(bean instanceof HikariDataSource && sizePrimary) {
+			resize((HikariDataSource) bean);
+		}
+		if(bean instanceof ReadReplicaDataSource) {
+			if(sizePrimary) {
+				resize(((ReadReplicaDataSource) bean).getPrimary());
+			}
+			if(sizeReplica) {
+				resize(((ReadReplicaDataSource) bean).getReplica());
+			}
+		}
+		return bean;
+	}
+
+	private void resize(HikariDataSource dataSource) {
+		dataSource.setMaximumPoolSize(size);
+		dataSource.setMinimumIdle(size);
+	}
+
+}
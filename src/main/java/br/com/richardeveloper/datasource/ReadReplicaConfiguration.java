@@ -0,0 +1,41 @@
+package br.com.richardeveloper.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Splits the JDBC pool in two when {@code library.datasource.replica.jdbc-url}
+ * is set: the primary keeps the usual {@code spring.datasource.*} settings and
+ * read-only transactions are served by a replica pool configured with Hikari
+ * properties under {@code library.datasource.replica.*}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "library.datasource.replica.jdbc-url")
+public class ReadReplicaConfiguration {
+
+	/*
+	 * The pools are not beans of their own: any extra DataSource bean would
+	 * make the schema initializer ask for the routing one while it is still
+	 * being created.
+	 */
+	@Bean
+	public ReadReplicaDataSource dataSource(DataSourceProperties properties, Environment environment) {
+		Binder binder = Binder.get(environment);
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName("primary");
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		HikariDataSource replica = new HikariDataSource();
+		replica.setPoolName("replica");
+		replica.setReadOnly(true);
+		binder.bind("library.datasource.replica", Bindable.ofInstance(replica));
+		return new ReadReplicaDataSource(primary, replica);
+	}
+
+}
@@ -0,0 +1,67 @@
+package br.com.richardeveloper.datasource;
+
+import java.io.Closeable;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends connections used inside a read-only transaction to the replica pool
+ * and everything else to the primary. The lazy proxy defers taking the
+ * physical connection until the first statement, by which point the
+ * transaction has been marked read-only.
+ */
+public class ReadReplicaDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+	private final HikariDataSource primary;
+
+	private final HikariDataSource replica;
+
+	public ReadReplicaDataSource(HikariDataSource primary, HikariDataSource replica) {
+		this.primary = primary;
+		this.replica = replica;
+		Router router = new Router();
+		router.setTargetDataSources(Map.of(Boolean.FALSE, primary, Boolean.TRUE, replica));
+		router.setDefaultTargetDataSource(primary);
+		router.afterPropertiesSet();
+		setTargetDataSource(router);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Whether a connection taken now by the current thread would come from
+	 * the replica.
+	 */
+	public static boolean isReplicaRead() {
+		return TransactionSynchronizationManager.isActualTransactionActive()
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	public HikariDataSource getPrimary() {
+		return primary;
+	}
+
+	public HikariDataSource getReplica() {
+		return replica;
+	}
+
+	@Override
+	public void close() {
+		replica.close();
+		primary.close();
+	}
+
+	private static class Router extends AbstractRoutingDataSource {
+
+		@Override
+		protected Object determineCurrentLookupKey() {
+			return isReplicaRead();
+		}
+
+	}
+
+}
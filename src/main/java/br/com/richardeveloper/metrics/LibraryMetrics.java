@@ -0,0 +1,23 @@
+package br.com.richardeveloper.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration(proxyBeanMethods = false)
+public class LibraryMetrics {
+
+	public static final String REPOSITORY = "library.repository";
+
+	public static final String SERVICE = "library.service";
+
+	public static final String MAPPING = "library.mapping";
+
+	@Bean
+	static MethodMetricsPostProcessor methodMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+		return new MethodMetricsPostProcessor(registry);
+	}
+
+}
@@ -0,0 +1,61 @@
+package br.com.richardeveloper.metrics;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import br.com.richardeveloper.models.mappers.BookMapper;
+import br.com.richardeveloper.models.mappers.LoanMapper;
+import br.com.richardeveloper.services.BookImportService;
+import br.com.richardeveloper.services.BookService;
+import br.com.richardeveloper.services.LoanService;
+
+/**
+ * Adds a {@link MethodTimingInterceptor} to repositories, services and mappers.
+ * Beans that are already proxied (repositories, transactional services) get the
+ * interceptor as the outermost advice instead of a second proxy.
+ */
+class MethodMetricsPostProcessor implements BeanPostProcessor {
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	MethodMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		String metric = metricFor(bean);
+		if(metric == null) {
+			return bean;
+		}
+		MethodTimingInterceptor interceptor = new MethodTimingInterceptor(metric, beanName, registry);
+		if(bean instanceof Advised && !((Advised) bean).isFrozen()) {
+			((Advised) bean).addAdvice(0, interceptor);
+			return bean;
+		}
+		ProxyFactory factory = new ProxyFactory(bean);
+		factory.setProxyTargetClass(ClassUtils.getAllInterfaces(bean).length == 0);
+		factory.addAdvice(interceptor);
+		return factory.getProxy(ClassUtils.getDefaultClassLoader());
+	}
+
+	private String metricFor(Object bean) {
+		if(bean instanceof Repository) {
+			return LibraryMetrics.REPOSITORY;
+		}
+		if(bean instanceof BookService || bean instanceof LoanService || bean instanceof BookImportService) {
+			return LibraryMetrics.SERVICE;
+		}
+		if(bean instanceof BookMapper || bean instanceof LoanMapper) {
+			return LibraryMetrics.MAPPING;
+		}
+		return null;
+	}
+
+}
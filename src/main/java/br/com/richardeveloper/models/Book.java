@@ -4,6 +4,10 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotEmpty;
 
 import lombok.AllArgsConstructor;
@@ -12,14 +16,19 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+		@Index(name = "uk_book_isbn", columnList = "isbn", unique = true),
+		@Index(name = "uk_book_title", columnList = "title", unique = true)
+})
 public class Book {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_sequence")
+	@SequenceGenerator(name = "book_sequence", sequenceName = "book_seq", allocationSize = 50)
 	private Long id;
 	
 	@NotEmpty
@@ -31,4 +40,7 @@ public class Book {
 	@NotEmpty
 	private String isbn;
 	
+	@Version
+	private Long version;
+	
 }
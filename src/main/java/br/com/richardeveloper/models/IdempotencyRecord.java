@@ -0,0 +1,42 @@
+package br.com.richardeveloper.models;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+		@Index(name = "idx_idempotency_record_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+
+	@Id
+	@Column(name = "idempotency_key", length = 300)
+	private String key;
+
+	@Column(length = 64, nullable = false)
+	private String fingerprint;
+
+	private int status;
+
+	@Lob
+	private String body;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+}
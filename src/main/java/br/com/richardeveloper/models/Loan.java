@@ -2,36 +2,60 @@ package br.com.richardeveloper.models;
 
 import java.time.LocalDate;
 
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@Entity
+@Table(indexes = {
+		@Index(name = "idx_loan_book_returned", columnList = "book_id, returned"),
+		@Index(name = "idx_loan_customer", columnList = "customer"),
+		@Index(name = "idx_loan_returned_loan_date", columnList = "returned, loan_date, id")
+})
 public class Loan {
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_sequence")
+	@SequenceGenerator(name = "loan_sequence", sequenceName = "loan_seq", allocationSize = 50)
 	private Long id;
 	
-	@NotEmpty
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "book_id", foreignKey = @ForeignKey(name = "fk_loan_book"))
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Book book;
 
 	@NotEmpty
 	private String customer;
 	
-	@NotEmpty
+	@NotNull
+	@Column(name = "loan_date")
 	private LocalDate loanDate;
 	
-	@NotEmpty
+	@NotNull
 	private Boolean returned;
 	
 }
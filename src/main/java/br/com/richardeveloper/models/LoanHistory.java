@@ -0,0 +1,50 @@
+package br.com.richardeveloper.models;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A returned loan moved out of {@link Loan} by the compaction job. Rows are
+ * only ever inserted; the book is kept by id and isbn without a foreign key,
+ * so history outlives the book.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+		@Index(name = "idx_loan_history_customer", columnList = "customer, loan_date, id"),
+		@Index(name = "idx_loan_history_book", columnList = "book_id, loan_date, id")
+})
+public class LoanHistory {
+
+	@Id
+	private Long id;
+
+	@Column(name = "book_id", nullable = false)
+	private Long bookId;
+
+	private String isbn;
+
+	@Column(nullable = false)
+	private String customer;
+
+	@Column(name = "loan_date", nullable = false)
+	private LocalDate loanDate;
+
+	@Column(name = "archived_at", nullable = false)
+	private Instant archivedAt;
+
+}
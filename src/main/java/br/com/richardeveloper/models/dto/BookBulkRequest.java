@@ -0,0 +1,20 @@
+package br.com.richardeveloper.models.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkRequest {
+
+	private List<Long> ids;
+
+	private String author;
+
+}
@@ -0,0 +1,18 @@
+package br.com.richardeveloper.models.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkResult {
+
+	private int requested;
+
+	private int affected;
+
+}
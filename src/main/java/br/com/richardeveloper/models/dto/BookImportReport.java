@@ -0,0 +1,32 @@
+package br.com.richardeveloper.models.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BookImportReport {
+
+	private int created;
+
+	private int rejected;
+
+	private List<BookImportResult> items = new ArrayList<BookImportResult>();
+
+	public void add(BookImportResult result) {
+		if(result.getStatus() == BookImportResult.Status.CREATED) {
+			created++;
+		} else {
+			rejected++;
+		}
+		items.add(result);
+	}
+
+	public BookImportReport sorted() {
+		items.sort(Comparator.comparingInt(BookImportResult::getIndex));
+		return this;
+	}
+
+}
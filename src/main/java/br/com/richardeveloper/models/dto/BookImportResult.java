@@ -0,0 +1,28 @@
+package br.com.richardeveloper.models.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResult {
+
+	public enum Status {
+		CREATED, DUPLICATED, INVALID
+	}
+
+	private int index;
+
+	private Long id;
+
+	private String isbn;
+
+	private Status status;
+
+	private String message;
+
+}
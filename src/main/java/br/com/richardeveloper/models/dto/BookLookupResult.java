@@ -0,0 +1,26 @@
+package br.com.richardeveloper.models.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class BookLookupResult {
+
+	private Long id;
+
+	private String isbn;
+
+	private boolean found;
+
+	private BookDTO book;
+
+}
@@ -0,0 +1,24 @@
+package br.com.richardeveloper.models.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSlice {
+
+	private List<BookDTO> content;
+
+	private int size;
+
+	private boolean hasNext;
+
+	private String nextCursor;
+
+}
@@ -1,5 +1,7 @@
 package br.com.richardeveloper.models.dto;
 
+import java.time.LocalDate;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,5 +17,7 @@ public class LoanDTO {
 	
 	private String isbn;
 	private String customer;
+	private LocalDate loanDate;
+	private Boolean returned;
 	
 }
@@ -0,0 +1,50 @@
+package br.com.richardeveloper.models.mappers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookDTO;
+
+public class BookMapper {
+
+	public Book toEntity(BookDTO dto) {
+		if(dto == null) {
+			return null;
+		}
+		return Book.builder()
+				.id(dto.getId())
+				.title(dto.getTitle())
+				.author(dto.getAuthor())
+				.isbn(dto.getIsbn())
+				.build();
+	}
+
+	public BookDTO toDto(Book book) {
+		if(book == null) {
+			return null;
+		}
+		return BookDTO.builder()
+				.id(book.getId())
+				.title(book.getTitle())
+				.author(book.getAuthor())
+				.isbn(book.getIsbn())
+				.build();
+	}
+
+	public List<BookDTO> toDtoList(List<Book> books) {
+		List<BookDTO> list = new ArrayList<BookDTO>(books.size());
+		for(Book book : books) {
+			list.add(toDto(book));
+		}
+		return list;
+	}
+
+	public Page<BookDTO> toDtoPage(Page<Book> page) {
+		return new PageImpl<BookDTO>(toDtoList(page.getContent()), page.getPageable(), page.getTotalElements());
+	}
+
+}
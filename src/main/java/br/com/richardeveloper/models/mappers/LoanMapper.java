@@ -0,0 +1,46 @@
+package br.com.richardeveloper.models.mappers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.models.dto.LoanDTO;
+
+public class LoanMapper {
+
+	public Loan toEntity(LoanDTO dto, Book book) {
+		if(dto == null) {
+			return null;
+		}
+		return Loan.builder()
+				.id(dto.getId())
+				.book(book)
+				.customer(dto.getCustomer())
+				.loanDate(LocalDate.now())
+				.build();
+	}
+
+	public LoanDTO toDto(Loan loan) {
+		if(loan == null) {
+			return null;
+		}
+		return LoanDTO.builder()
+				.id(loan.getId())
+				.isbn(loan.getBook() != null ? loan.getBook().getIsbn() : null)
+				.customer(loan.getCustomer())
+				.loanDate(loan.getLoanDate())
+				.returned(loan.getReturned())
+				.build();
+	}
+
+	public List<LoanDTO> toDtoList(List<Loan> loans) {
+		List<LoanDTO> list = new ArrayList<LoanDTO>(loans.size());
+		for(Loan loan : loans) {
+			list.add(toDto(loan));
+		}
+		return list;
+	}
+
+}
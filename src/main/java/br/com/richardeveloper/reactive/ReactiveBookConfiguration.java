@@ -0,0 +1,83 @@
+package br.com.richardeveloper.reactive;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.richardeveloper.models.mappers.BookMapper;
+import br.com.richardeveloper.services.BookSearchIndex;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+
+/**
+ * Serves GET /api/books/{id} and GET /api/books from an event loop on
+ * {@code library.reactive.port}. The R2DBC connection factory is derived from
+ * the JDBC url so both stacks read the same H2 database.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "library.reactive.enabled", havingValue = "true")
+public class ReactiveBookConfiguration {
+
+	private static final String H2_PREFIX = "jdbc:h2:";
+
+	/*
+	 * The pool is kept inside the repository rather than exposed as a
+	 * ConnectionFactory bean, which would make DataSourceAutoConfiguration back
+	 * off and take JPA down with it.
+	 */
+	@Bean(destroyMethod = "close")
+	public ReactiveBookRepository reactiveBookRepository(DataSourceProperties dataSource,
+			@Value("${library.reactive.pool.max-size:16}") int maxSize) {
+		String url = dataSource.determineUrl();
+		if(url == null || !url.startsWith(H2_PREFIX)) {
+			throw new IllegalStateException("Reactive read path needs an H2 datasource, found " + url);
+		}
+		H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+				.url(url.substring(H2_PREFIX.length()))
+				.username(dataSource.determineUsername())
+				.password(dataSource.determinePassword())
+				.build();
+		return new ReactiveBookRepository(new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+				.initialSize(Math.min(4, maxSize))
+				.maxSize(maxSize)
+				.maxIdleTime(Duration.ofMinutes(30))
+				.build()));
+	}
+
+	@Bean
+	public ReactiveBookHandler reactiveBookHandler(ReactiveBookRepository repository, BookSearchIndex searchIndex, BookMapper mapper) {
+		return new ReactiveBookHandler(repository, searchIndex, mapper);
+	}
+
+	@Bean
+	public ReactiveBookServer reactiveBookServer(ReactiveBookHandler handler, ObjectMapper objectMapper,
+			@Value("${library.reactive.port:8081}") int port,
+			@Value("${library.reactive.event-loop-threads:4}") int eventLoopThreads) {
+		RouterFunction<ServerResponse> routes = RouterFunctions.route()
+				.GET("/api/books/{id}", handler::findById)
+				.GET("/api/books", handler::findByAuthorAndTitle)
+				.build();
+		HandlerStrategies strategies = HandlerStrategies.builder()
+				.codecs(codecs -> {
+					codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+					codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+				})
+				.build();
+		return new ReactiveBookServer(RouterFunctions.toHttpHandler(routes, strategies), port, eventLoopThreads);
+	}
+
+}
@@ -0,0 +1,139 @@
+package br.com.richardeveloper.reactive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.mappers.BookMapper;
+import br.com.richardeveloper.resources.exceptions.ApiErrors;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.services.BookSearchIndex;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of the BookController read endpoints. Responses use the
+ * same BookDTO and Page JSON; title/author searches are ranked by the shared
+ * BookSearchIndex and everything else is a filtered scan in the requested order.
+ */
+public class ReactiveBookHandler {
+
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
+	private static final int MAX_PAGE_SIZE = 2000;
+
+	private final ReactiveBookRepository repository;
+
+	private final BookSearchIndex searchIndex;
+
+	private final BookMapper mapper;
+
+	public ReactiveBookHandler(ReactiveBookRepository repository, BookSearchIndex searchIndex, BookMapper mapper) {
+		this.repository = repository;
+		this.searchIndex = searchIndex;
+		this.mapper = mapper;
+	}
+
+	public Mono<ServerResponse> findById(ServerRequest request) {
+		Long id;
+		try {
+			id = Long.valueOf(request.pathVariable("id"));
+		} catch (NumberFormatException e) {
+			return ServerResponse.badRequest().bodyValue(new ApiErrors("Id inválido."));
+		}
+		return repository.findById(id)
+				.flatMap(book -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(mapper.toDto(book)))
+				.switchIfEmpty(ServerResponse.notFound().build());
+	}
+
+	/*
+	 * Takes the same page, size, sort and filter parameters as the MVC search
+	 * and, like it, only goes to the index for unsorted title/author queries.
+	 */
+	public Mono<ServerResponse> findByAuthorAndTitle(ServerRequest request) {
+		Pageable pageable;
+		try {
+			pageable = PageRequest.of(Integer.parseInt(request.queryParam("page").orElse("0")),
+					Math.min(Integer.parseInt(request.queryParam("size").orElse(String.valueOf(DEFAULT_PAGE_SIZE))), MAX_PAGE_SIZE),
+					sort(request.queryParams().getOrDefault("sort", List.of())));
+		} catch (IllegalArgumentException e) {
+			return ServerResponse.badRequest().bodyValue(new ApiErrors("Paginação inválida."));
+		}
+		Long id;
+		try {
+			id = request.queryParam("id").map(Long::valueOf).orElse(null);
+		} catch (NumberFormatException e) {
+			return ServerResponse.badRequest().bodyValue(new ApiErrors("Id inválido."));
+		}
+		String title = request.queryParam("title").orElse(null);
+		String author = request.queryParam("author").orElse(null);
+		String isbn = request.queryParam("isbn").orElse(null);
+		Mono<Page<Book>> page = id == null && isbn == null && (title != null || author != null) && pageable.getSort().isUnsorted()
+				? search(title, author, pageable)
+				: scan(id, title, author, isbn, pageable);
+		return page.flatMap(books -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(mapper.toDtoPage(books)))
+				.onErrorResume(BusinessException.class, e -> ServerResponse.badRequest().bodyValue(new ApiErrors(e)));
+	}
+
+	/*
+	 * The Lucene search blocks, so it runs on the bounded elastic scheduler
+	 * rather than on the event loop.
+	 */
+	private Mono<Page<Book>> search(String title, String author, Pageable pageable) {
+		return Mono.fromCallable(() -> searchIndex.search(title, author, pageable))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMap(ids -> repository.findAllById(ids.getContent())
+						.collect(Collectors.toMap(Book::getId, Function.identity()))
+						.map(found -> new PageImpl<Book>(inRankOrder(ids.getContent(), found), pageable, ids.getTotalElements())));
+	}
+
+	private List<Book> inRankOrder(List<Long> ids, Map<Long, Book> found) {
+		return ids.stream().filter(found::containsKey).map(found::get).collect(Collectors.toList());
+	}
+
+	/*
+	 * Parses sort parameters the way Spring Data web support does: each value
+	 * is a list of properties, optionally followed by a direction for all of
+	 * them. Unknown properties are rejected.
+	 */
+	private Sort sort(List<String> values) {
+		Sort sort = Sort.unsorted();
+		for(String value : values) {
+			List<String> parts = new ArrayList<String>(Arrays.asList(value.split(",")));
+			Optional<Direction> direction = Direction.fromOptionalString(parts.get(parts.size() - 1));
+			if(direction.isPresent()) {
+				parts.remove(parts.size() - 1);
+			}
+			for(String property : parts) {
+				if(!ReactiveBookRepository.SORTABLE.contains(property)) {
+					throw new IllegalArgumentException("Unknown sort property " + property);
+				}
+				sort = sort.and(Sort.by(direction.orElse(Direction.ASC), property));
+			}
+		}
+		return sort;
+	}
+
+	private Mono<Page<Book>> scan(Long id, String title, String author, String isbn, Pageable pageable) {
+		return repository.findAll(id, title, author, isbn, pageable.getSort(), pageable.getOffset(), pageable.getPageSize())
+				.collectList()
+				.zipWith(repository.count(id, title, author, isbn))
+				.map(result -> new PageImpl<Book>(result.getT1(), pageable, result.getT2()));
+	}
+
+}
@@ -0,0 +1,139 @@
+package br.com.richardeveloper.reactive;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Sort;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.repositories.BookRepositoryCustom;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads the JPA-managed book table over R2DBC. Only the read side lives here;
+ * every write still goes through BookService.
+ */
+public class ReactiveBookRepository {
+
+	private static final String SELECT = "select id, title, author, isbn, version from book";
+
+	private static final String FILTER = " where ($1 is null or lower(title) like $1 escape '\\')"
+			+ " and ($2 is null or lower(author) like $2 escape '\\')"
+			+ " and ($3 is null or lower(isbn) like $3 escape '\\')"
+			+ " and ($4 is null or id = $4)";
+
+	static final Set<String> SORTABLE = Set.of("id", "title", "author", "isbn");
+
+	private final ConnectionFactory connectionFactory;
+
+	public ReactiveBookRepository(ConnectionFactory connectionFactory) {
+		this.connectionFactory = connectionFactory;
+	}
+
+	public Mono<Book> findById(Long id) {
+		return query(SELECT + " where id = $1", statement -> statement.bind("$1", id)).next();
+	}
+
+	public Flux<Book> findAllById(List<Long> ids) {
+		if(ids.isEmpty()) {
+			return Flux.empty();
+		}
+		StringBuilder sql = new StringBuilder(SELECT).append(" where id in (");
+		for(int i = 1; i <= ids.size(); i++) {
+			sql.append(i == 1 ? "$" : ", $").append(i);
+		}
+		sql.append(')');
+		return query(sql.toString(), statement -> {
+			for(int i = 0; i < ids.size(); i++) {
+				statement.bind(i, ids.get(i));
+			}
+		});
+	}
+
+	/**
+	 * Filtered page ordered by {@code sort}, whose properties must be in
+	 * {@link #SORTABLE}, and then by id.
+	 */
+	public Flux<Book> findAll(Long id, String title, String author, String isbn, Sort sort, long offset, int limit) {
+		return query(SELECT + FILTER + orderBy(sort) + " limit $5 offset $6", statement -> {
+			bindFilter(statement, id, title, author, isbn);
+			statement.bind("$5", limit).bind("$6", offset);
+		});
+	}
+
+	public Mono<Long> count(Long id, String title, String author, String isbn) {
+		return Mono.usingWhen(connectionFactory.create(),
+				connection -> {
+					Statement statement = connection.createStatement("select count(*) from book" + FILTER);
+					bindFilter(statement, id, title, author, isbn);
+					return Mono.from(statement.execute())
+							.flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Long.class))));
+				},
+				Connection::close);
+	}
+
+	private Flux<Book> query(String sql, Consumer<Statement> binder) {
+		return Flux.usingWhen(connectionFactory.create(),
+				connection -> {
+					Statement statement = connection.createStatement(sql);
+					binder.accept(statement);
+					return Flux.from(statement.execute())
+							.flatMap(result -> result.map((row, metadata) -> toBook(row)));
+				},
+				Connection::close);
+	}
+
+	public void close() {
+		if(connectionFactory instanceof Disposable) {
+			((Disposable) connectionFactory).dispose();
+		}
+	}
+
+	private String orderBy(Sort sort) {
+		StringBuilder orderBy = new StringBuilder(" order by ");
+		for(Sort.Order order : sort) {
+			if(!SORTABLE.contains(order.getProperty())) {
+				throw new IllegalArgumentException("Unknown sort property " + order.getProperty());
+			}
+			orderBy.append(order.getProperty()).append(order.isAscending() ? " asc, " : " desc, ");
+		}
+		return orderBy.append("id").toString();
+	}
+
+	private void bindFilter(Statement statement, Long id, String title, String author, String isbn) {
+		bind(statement, "$1", title);
+		bind(statement, "$2", author);
+		bind(statement, "$3", isbn);
+		if(id == null) {
+			statement.bindNull("$4", Long.class);
+		} else {
+			statement.bind("$4", id);
+		}
+	}
+
+	private void bind(Statement statement, String name, String value) {
+		if(value == null) {
+			statement.bindNull(name, String.class);
+		} else {
+			statement.bind(name, BookRepositoryCustom.containing(value));
+		}
+	}
+
+	private Book toBook(Row row) {
+		return Book.builder()
+				.id(row.get("id", Long.class))
+				.title(row.get("title", String.class))
+				.author(row.get("author", String.class))
+				.isbn(row.get("isbn", String.class))
+				.version(row.get("version", Long.class))
+				.build();
+	}
+
+}
@@ -0,0 +1,73 @@
+package br.com.richardeveloper.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Reactor Netty server for the reactive read routes, started next to the
+ * servlet container on its own port and event loop group.
+ */
+public class ReactiveBookServer implements SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveBookServer.class);
+
+	private final HttpHandler handler;
+
+	private final int port;
+
+	private final int eventLoopThreads;
+
+	private LoopResources loops;
+
+	private volatile DisposableServer server;
+
+	public ReactiveBookServer(HttpHandler handler, int port, int eventLoopThreads) {
+		this.handler = handler;
+		this.port = port;
+		this.eventLoopThreads = eventLoopThreads;
+	}
+
+	@Override
+	public void start() {
+		loops = LoopResources.create("reactive-books", eventLoopThreads, true);
+		server = HttpServer.create()
+				.port(port)
+				.runOn(loops)
+				.handle(new ReactorHttpHandlerAdapter(handler))
+				.bindNow();
+		log.info("Reactive book API started on port {} with {} event loop threads", server.port(), eventLoopThreads);
+	}
+
+	@Override
+	public void stop() {
+		server.disposeNow();
+		loops.disposeLater().block();
+		server = null;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return server != null;
+	}
+
+	/**
+	 * Port the server is bound to.
+	 *
+	 * @throws IllegalStateException if the server is not running
+	 */
+	public int getPort() {
+		DisposableServer running = server;
+		if(running == null) {
+			throw new IllegalStateException("Reactive book server is not running");
+		}
+		return running.port();
+	}
+
+}
@@ -1,15 +1,71 @@
 package br.com.richardeveloper.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import br.com.richardeveloper.models.Book;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long>{
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+	Optional<Book> findByIsbn(String isbn);
+
+	List<Book> findByIsbnIn(Collection<String> isbns);
+
+	/**
+	 * Books after {@code after} in id order. Text parameters are LIKE patterns
+	 * escaped with {@link BookRepositoryCustom#LIKE_ESCAPE}, see
+	 * {@link BookRepositoryCustom#containing(String)}.
+	 */
+	@Query("select b from Book b where b.id > :after"
+			+ " and (:id is null or b.id = :id)"
+			+ " and (:title is null or lower(b.title) like :title escape '\\')"
+			+ " and (:author is null or lower(b.author) like :author escape '\\')"
+			+ " and (:isbn is null or lower(b.isbn) like :isbn escape '\\')"
+			+ " order by b.id")
+	Slice<Book> findAfter(@Param("after") Long after, @Param("id") Long id, @Param("title") String title,
+			@Param("author") String author, @Param("isbn") String isbn, Pageable pageable);
+
+	@Query("select b.version from Book b where b.id = :id")
+	Optional<Long> findVersionById(@Param("id") Long id);
+
+	@Modifying
+	@Query("update Book b set b.version = b.version + 1 where b.id = :id and b.version = :version")
+	int incrementVersion(@Param("id") Long id, @Param("version") Long version);
+
+	@Modifying
+	@Query("delete from Book b where b.id in :ids")
+	int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Modifying
+	@Query("update Book b set b.author = :author, b.version = b.version + 1 where b.id in :ids")
+	int updateAuthorByIdIn(@Param("ids") Collection<Long> ids, @Param("author") String author);
+
+	@QueryHints({
+			@QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+			@QueryHint(name = "org.hibernate.readOnly", value = "true")
+	})
+	@Query("select b from Book b order by b.id")
+	Stream<Book> streamAll();
 
-	boolean existsByIsbn(String isbn);
+	@Query("select b.isbn from Book b where b.isbn in :isbns")
+	Set<String> findIsbnsIn(@Param("isbns") Collection<String> isbns);
 
-	boolean existsByTitle(String title);
+	@Query("select b.title from Book b where b.title in :titles")
+	Set<String> findTitlesIn(@Param("titles") Collection<String> titles);
 
 }
@@ -0,0 +1,41 @@
+package br.com.richardeveloper.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import br.com.richardeveloper.models.Book;
+
+public interface BookRepositoryCustom {
+
+	char LIKE_ESCAPE = '\\';
+
+	/**
+	 * Lower-cased LIKE pattern matching {@code value} anywhere, with the
+	 * wildcards and the escape character in {@code value} taken literally.
+	 */
+	static String containing(String value) {
+		if(value == null) {
+			return null;
+		}
+		StringBuilder pattern = new StringBuilder(value.length() + 8).append('%');
+		for(char c : value.toLowerCase().toCharArray()) {
+			if(c == LIKE_ESCAPE || c == '%' || c == '_') {
+				pattern.append(LIKE_ESCAPE);
+			}
+			pattern.append(c);
+		}
+		return pattern.append('%').toString();
+	}
+
+	Page<Map<String, Object>> findFields(Book probe, Set<String> fields, Pageable pageable);
+
+	List<Map<String, Object>> findFieldsByIdIn(Collection<Long> ids, Set<String> fields);
+
+	int updateFields(Long id, Long version, Map<String, Object> changes);
+
+}
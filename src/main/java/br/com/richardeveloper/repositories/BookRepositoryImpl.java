@@ -0,0 +1,145 @@
+package br.com.richardeveloper.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import br.com.richardeveloper.models.Book;
+
+/**
+ * Tuple projections and partial updates over {@link Book}: only the
+ * requested columns are selected or written and no entity is instantiated,
+ * so nothing lands in the persistence context or goes through dirty checking.
+ */
+class BookRepositoryImpl implements BookRepositoryCustom {
+
+	private final EntityManager entityManager;
+
+	BookRepositoryImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	public Page<Map<String, Object>> findFields(Book probe, Set<String> fields, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Book> root = query.from(Book.class);
+		query.multiselect(selections(root, fields)).where(matching(cb, root, probe));
+		if(pageable.getSort().isSorted()) {
+			query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+		}
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if(pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+		}
+		List<Map<String, Object>> content = toMaps(typedQuery.getResultList(), fields);
+		return PageableExecutionUtils.getPage(content, pageable, () -> count(probe));
+	}
+
+	@Override
+	public List<Map<String, Object>> findFieldsByIdIn(Collection<Long> ids, Set<String> fields) {
+		if(ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Book> root = query.from(Book.class);
+		List<Selection<?>> selections = selections(root, fields);
+		if(!fields.contains("id")) {
+			selections.add(root.get("id").alias("id"));
+		}
+		query.multiselect(selections).where(root.get("id").in(ids));
+		Map<Long, Map<String, Object>> found = new LinkedHashMap<Long, Map<String, Object>>();
+		for(Tuple tuple : entityManager.createQuery(query).getResultList()) {
+			found.put(tuple.get("id", Long.class), toMap(tuple, fields));
+		}
+		List<Map<String, Object>> content = new ArrayList<Map<String, Object>>(found.size());
+		for(Long id : ids) {
+			if(found.containsKey(id)) {
+				content.add(found.get(id));
+			}
+		}
+		return content;
+	}
+
+	/*
+	 * Sets only the given columns and bumps the version in a single statement.
+	 * With a version the row is only touched if it still has it, so a
+	 * concurrent writer shows up as zero rows updated instead of being
+	 * silently overwritten.
+	 */
+	@Override
+	public int updateFields(Long id, Long version, Map<String, Object> changes) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+		Root<Book> root = update.from(Book.class);
+		changes.forEach((field, value) -> update.set(root.get(field), value));
+		update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+		Predicate byId = cb.equal(root.get("id"), id);
+		update.where(version == null ? byId : cb.and(byId, cb.equal(root.get("version"), version)));
+		return entityManager.createQuery(update).executeUpdate();
+	}
+
+	private long count(Book probe) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Book> root = query.from(Book.class);
+		query.select(cb.count(root)).where(matching(cb, root, probe));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	private List<Selection<?>> selections(Root<Book> root, Set<String> fields) {
+		List<Selection<?>> selections = new ArrayList<Selection<?>>(fields.size() + 1);
+		fields.forEach(field -> selections.add(root.get(field).alias(field)));
+		return selections;
+	}
+
+	private Predicate[] matching(CriteriaBuilder cb, Root<Book> root, Book probe) {
+		List<Predicate> predicates = new ArrayList<Predicate>(4);
+		if(probe.getId() != null) {
+			predicates.add(cb.equal(root.get("id"), probe.getId()));
+		}
+		addContaining(cb, root, "title", probe.getTitle(), predicates);
+		addContaining(cb, root, "author", probe.getAuthor(), predicates);
+		addContaining(cb, root, "isbn", probe.getIsbn(), predicates);
+		return predicates.toArray(new Predicate[0]);
+	}
+
+	private void addContaining(CriteriaBuilder cb, Root<Book> root, String field, String value, List<Predicate> predicates) {
+		if(value != null) {
+			predicates.add(cb.like(cb.lower(root.get(field)), BookRepositoryCustom.containing(value), LIKE_ESCAPE));
+		}
+	}
+
+	private List<Map<String, Object>> toMaps(List<Tuple> tuples, Set<String> fields) {
+		List<Map<String, Object>> maps = new ArrayList<Map<String, Object>>(tuples.size());
+		tuples.forEach(tuple -> maps.add(toMap(tuple, fields)));
+		return maps;
+	}
+
+	private Map<String, Object> toMap(Tuple tuple, Set<String> fields) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>(fields.size() * 2);
+		fields.forEach(field -> map.put(field, tuple.get(field)));
+		return map;
+	}
+
+}
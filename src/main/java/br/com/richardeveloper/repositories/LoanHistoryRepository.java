@@ -0,0 +1,38 @@
+package br.com.richardeveloper.repositories;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import br.com.richardeveloper.models.LoanHistory;
+
+@Repository
+public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long> {
+
+	@Modifying
+	@Query("insert into LoanHistory (id, bookId, isbn, customer, loanDate, archivedAt) "
+			+ "select l.id, b.id, b.isbn, l.customer, l.loanDate, :archivedAt from Loan l join l.book b "
+			+ "where l.id in :ids and l.returned = true")
+	int archive(@Param("ids") Collection<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+	@Query("select h from LoanHistory h where h.customer = :customer "
+			+ "and (:afterDate is null or h.loanDate < :afterDate or (h.loanDate = :afterDate and h.id < :afterId)) "
+			+ "order by h.loanDate desc, h.id desc")
+	List<LoanHistory> findByCustomerBefore(@Param("customer") String customer, @Param("afterDate") LocalDate afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	@Query("select h from LoanHistory h where h.bookId = :bookId "
+			+ "and (:afterDate is null or h.loanDate < :afterDate or (h.loanDate = :afterDate and h.id < :afterId)) "
+			+ "order by h.loanDate desc, h.id desc")
+	List<LoanHistory> findByBookBefore(@Param("bookId") Long bookId, @Param("afterDate") LocalDate afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+}
@@ -0,0 +1,63 @@
+package br.com.richardeveloper.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import br.com.richardeveloper.models.Loan;
+
+@Repository
+public interface LoanRepository extends JpaRepository<Loan, Long>{
+
+	boolean existsByBookIdAndReturnedFalse(Long bookId);
+
+	boolean existsByIdAndReturnedFalse(Long id);
+
+	@Query("select l.book.id from Loan l where l.id = :id")
+	Optional<Long> findBookIdById(@Param("id") Long id);
+
+	@Modifying
+	@Query("update Loan l set l.returned = true where l.id = :id and l.returned = false")
+	int markReturned(@Param("id") Long id);
+
+	@Query("select l.id from Loan l where l.returned = true")
+	List<Long> findReturnedIds(Pageable pageable);
+
+	@Modifying
+	@Query("delete from Loan l where l.id in :ids and l.returned = true")
+	int deleteReturnedByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Query("select l from Loan l join fetch l.book where l.customer = :customer "
+			+ "and (:afterDate is null or l.loanDate < :afterDate or (l.loanDate = :afterDate and l.id < :afterId)) "
+			+ "order by l.loanDate desc, l.id desc")
+	List<Loan> findByCustomerBefore(@Param("customer") String customer, @Param("afterDate") LocalDate afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	@Query("select l from Loan l join fetch l.book where l.book.id = :bookId "
+			+ "and (:afterDate is null or l.loanDate < :afterDate or (l.loanDate = :afterDate and l.id < :afterId)) "
+			+ "order by l.loanDate desc, l.id desc")
+	List<Loan> findByBookBefore(@Param("bookId") Long bookId, @Param("afterDate") LocalDate afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	@Query("select l from Loan l join fetch l.book "
+			+ "where l.returned = false and l.loanDate < :dueBefore "
+			+ "order by l.loanDate, l.id")
+	Slice<Loan> findLate(@Param("dueBefore") LocalDate dueBefore, Pageable pageable);
+
+	@Query("select l from Loan l join fetch l.book "
+			+ "where l.returned = false and l.loanDate < :dueBefore "
+			+ "and (l.loanDate > :afterDate or (l.loanDate = :afterDate and l.id > :afterId)) "
+			+ "order by l.loanDate, l.id")
+	Slice<Loan> findLateAfter(@Param("dueBefore") LocalDate dueBefore, @Param("afterDate") LocalDate afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+}
@@ -19,6 +19,10 @@ public class ApiErrors {
 		this.errors = Arrays.asList(e.getMessage());
 	}
 	
+	public ApiErrors(String message) {
+		this.errors = Arrays.asList(message);
+	}
+	
 	public List<String> getErrors() {
 		return errors;
 	}
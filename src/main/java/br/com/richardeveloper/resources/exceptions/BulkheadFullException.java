@@ -0,0 +1,10 @@
+package br.com.richardeveloper.resources.exceptions;
+
+public class BulkheadFullException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadFullException(String bulkhead) {
+		super(bulkhead);
+	}
+
+}
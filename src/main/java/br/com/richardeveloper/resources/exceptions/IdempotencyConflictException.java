@@ -0,0 +1,10 @@
+package br.com.richardeveloper.resources.exceptions;
+
+public class IdempotencyConflictException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public IdempotencyConflictException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,239 @@
+package br.com.richardeveloper.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import br.com.richardeveloper.datasource.ReadReplicaDataSource;
+import br.com.richardeveloper.models.Book;
+
+/**
+ * Read-through cache of books by id and isbn. A reader that loaded while a write
+ * ran drops its own entry, so nothing older than the last completed write is served.
+ * With a read replica, books written within the replica's maximum lag are not
+ * cached from replica reads, which may still return the old row.
+ */
+@Component
+public class BookCache implements MeterBinder {
+
+	private final Cache<Long, Book> byId;
+
+	private final Cache<String, Long> idByIsbn;
+
+	private final AtomicLong writes = new AtomicLong();
+
+	private final Cache<Long, Boolean> recentWrites;
+
+	@Autowired
+	public BookCache(@Value("${library.cache.books.maximum-size:10000}") long maximumSize,
+			@Value("${library.cache.books.expire-after-write:10m}") Duration expireAfterWrite,
+			ObjectProvider<ReadReplicaDataSource> replica,
+			@Value("${library.datasource.replica.max-lag:5s}") Duration replicaMaxLag) {
+		this(maximumSize, expireAfterWrite, replica.getIfAvailable() == null ? null : replicaMaxLag);
+	}
+
+	BookCache(long maximumSize, Duration expireAfterWrite) {
+		this(maximumSize, expireAfterWrite, null);
+	}
+
+	BookCache(long maximumSize, Duration expireAfterWrite, Duration replicaMaxLag) {
+		this.recentWrites = replicaMaxLag == null ? null : Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(replicaMaxLag)
+				.build();
+		this.byId = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build();
+		this.idByIsbn = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build();
+	}
+
+	public Optional<Book> findById(Long id, Function<Long, Optional<Book>> loader) {
+		Book cached = byId.getIfPresent(id);
+		if(cached != null) {
+			return Optional.of(cached.toBuilder().build());
+		}
+		return load(id, loader);
+	}
+
+	public Optional<Book> findByIsbn(String isbn, Function<String, Optional<Book>> loader) {
+		Long id = idByIsbn.getIfPresent(isbn);
+		if(id != null) {
+			Book cached = byId.getIfPresent(id);
+			if(cached != null && isbn.equals(cached.getIsbn())) {
+				return Optional.of(cached.toBuilder().build());
+			}
+		}
+		return load(isbn, loader);
+	}
+
+	/**
+	 * Returns the cached books among {@code ids} and loads the rest with a
+	 * single call to {@code loader}. Ids that do not exist are absent from
+	 * the result.
+	 */
+	public Map<Long, Book> findAllById(Collection<Long> ids, Function<List<Long>, List<Book>> loader) {
+		Map<Long, Book> found = new HashMap<Long, Book>(ids.size() * 2);
+		List<Long> missing = new ArrayList<Long>();
+		for(Long id : ids) {
+			Book cached = byId.getIfPresent(id);
+			if(cached != null) {
+				found.put(id, cached.toBuilder().build());
+			} else {
+				missing.add(id);
+			}
+		}
+		loadAll(missing, loader).forEach(book -> found.put(book.getId(), book));
+		return found;
+	}
+
+	public Map<String, Book> findAllByIsbn(Collection<String> isbns, Function<List<String>, List<Book>> loader) {
+		Map<String, Book> found = new HashMap<String, Book>(isbns.size() * 2);
+		List<String> missing = new ArrayList<String>();
+		for(String isbn : isbns) {
+			Long id = idByIsbn.getIfPresent(isbn);
+			Book cached = id == null ? null : byId.getIfPresent(id);
+			if(cached != null && isbn.equals(cached.getIsbn())) {
+				found.put(isbn, cached.toBuilder().build());
+			} else {
+				missing.add(isbn);
+			}
+		}
+		loadAll(missing, loader).forEach(book -> found.put(book.getIsbn(), book));
+		return found;
+	}
+
+	/**
+	 * Evicts {@code book} now and, inside a transaction, again once it
+	 * completes, so a reader that loads the old row before the commit cannot
+	 * leave it cached.
+	 */
+	public void invalidate(Book book) {
+		Book key = Book.builder().id(book.getId()).isbn(book.getIsbn()).build();
+		writes.incrementAndGet();
+		evict(key);
+		written(key.getId());
+		afterCompletion(() -> {
+			writes.incrementAndGet();
+			evict(key);
+			written(key.getId());
+		});
+	}
+
+	/**
+	 * Same as {@link #invalidate(Book)} for many ids at once.
+	 */
+	public void invalidateAll(Collection<Long> ids) {
+		evictAll(ids);
+		afterCompletion(() -> evictAll(ids));
+	}
+
+	public CacheStats stats() {
+		return byId.stats().plus(idByIsbn.stats());
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, byId, "books");
+		CaffeineCacheMetrics.monitor(registry, idByIsbn, "books-by-isbn");
+	}
+
+	private <K> Optional<Book> load(K key, Function<K, Optional<Book>> loader) {
+		long epoch = writes.get();
+		Optional<Book> loaded = loader.apply(key);
+		loaded.ifPresent(book -> put(book, epoch));
+		return loaded;
+	}
+
+	private <K> List<Book> loadAll(List<K> keys, Function<List<K>, List<Book>> loader) {
+		if(keys.isEmpty()) {
+			return Collections.emptyList();
+		}
+		long epoch = writes.get();
+		List<Book> loaded = loader.apply(keys);
+		loaded.forEach(book -> put(book, epoch));
+		return loaded;
+	}
+
+	private void put(Book book, long epoch) {
+		if(book.getId() == null) {
+			return;
+		}
+		if(recentWrites != null && ReadReplicaDataSource.isReplicaRead() && recentWrites.getIfPresent(book.getId()) != null) {
+			return;
+		}
+		byId.put(book.getId(), book.toBuilder().build());
+		if(book.getIsbn() != null) {
+			idByIsbn.put(book.getIsbn(), book.getId());
+		}
+		if(writes.get() != epoch) {
+			evict(book);
+		}
+	}
+
+	private void afterCompletion(Runnable action) {
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					action.run();
+				}
+			});
+		}
+	}
+
+	private void evictAll(Collection<Long> ids) {
+		writes.incrementAndGet();
+		ids.forEach(id -> {
+			evict(Book.builder().id(id).build());
+			written(id);
+		});
+	}
+
+	private void written(Long id) {
+		if(recentWrites != null && id != null) {
+			recentWrites.put(id, Boolean.TRUE);
+		}
+	}
+
+	private void evict(Book book) {
+		if(book.getId() != null) {
+			Book cached = byId.getIfPresent(book.getId());
+			if(cached != null && cached.getIsbn() != null) {
+				idByIsbn.invalidate(cached.getIsbn());
+			}
+			byId.invalidate(book.getId());
+		}
+		if(book.getIsbn() != null) {
+			idByIsbn.invalidate(book.getIsbn());
+		}
+	}
+
+}
@@ -0,0 +1,12 @@
+package br.com.richardeveloper.services;
+
+import java.util.Iterator;
+
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.models.dto.BookImportReport;
+
+public interface BookImportService {
+
+	public BookImportReport importBooks(Iterator<BookDTO> books);
+
+}
@@ -0,0 +1,119 @@
+package br.com.richardeveloper.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.models.dto.BookImportReport;
+import br.com.richardeveloper.models.dto.BookImportResult;
+import br.com.richardeveloper.models.dto.BookImportResult.Status;
+import br.com.richardeveloper.models.mappers.BookMapper;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+	private BookService service;
+
+	private BookMapper mapper;
+
+	private Validator validator;
+
+	private int chunkSize;
+
+	public BookImportServiceImpl(BookService service, BookMapper mapper, Validator validator,
+			@Value("${library.books.import.chunk-size:500}") int chunkSize) {
+		this.service = service;
+		this.mapper = mapper;
+		this.validator = validator;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public BookImportReport importBooks(Iterator<BookDTO> books) {
+		BookImportReport report = new BookImportReport();
+		List<Book> chunk = new ArrayList<Book>(chunkSize);
+		List<Integer> indexes = new ArrayList<Integer>(chunkSize);
+		int index = 0;
+		while(true) {
+			BookDTO dto;
+			try {
+				if(!books.hasNext()) {
+					break;
+				}
+				dto = books.next();
+			} catch (BusinessException e) {
+				report.add(BookImportResult.builder().index(index).status(Status.INVALID).message(e.getMessage()).build());
+				break;
+			}
+			Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+			if(violations.isEmpty()) {
+				chunk.add(mapper.toEntity(dto));
+				indexes.add(index);
+			} else {
+				report.add(BookImportResult.builder().index(index).isbn(dto.getIsbn()).status(Status.INVALID).message(describe(violations)).build());
+			}
+			if(chunk.size() == chunkSize) {
+				saveChunk(chunk, indexes, report);
+			}
+			index++;
+		}
+		saveChunk(chunk, indexes, report);
+		return report.sorted();
+	}
+
+	private void saveChunk(List<Book> chunk, List<Integer> indexes, BookImportReport report) {
+		if(chunk.isEmpty()) {
+			return;
+		}
+		List<BookImportResult> results;
+		try {
+			results = service.saveAll(chunk);
+		} catch (DataIntegrityViolationException e) {
+			results = saveOneByOne(chunk);
+		}
+		for(int i = 0; i < results.size(); i++) {
+			BookImportResult result = results.get(i);
+			result.setIndex(indexes.get(i));
+			report.add(result);
+		}
+		chunk.clear();
+		indexes.clear();
+	}
+
+	private List<BookImportResult> saveOneByOne(List<Book> chunk) {
+		List<BookImportResult> results = new ArrayList<BookImportResult>(chunk.size());
+		for(Book book : chunk) {
+			book.setId(null);
+			BookImportResult result = BookImportResult.builder().isbn(book.getIsbn()).build();
+			try {
+				result.setId(service.save(book).getId());
+				result.setStatus(Status.CREATED);
+			} catch (BusinessException e) {
+				result.setStatus(Status.DUPLICATED);
+				result.setMessage(e.getMessage());
+			}
+			results.add(result);
+		}
+		return results;
+	}
+
+	private String describe(Set<ConstraintViolation<BookDTO>> violations) {
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+				.sorted()
+				.collect(Collectors.joining(", "));
+	}
+
+}
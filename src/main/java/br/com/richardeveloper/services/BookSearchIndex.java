@@ -0,0 +1,236 @@
+package br.com.richardeveloper.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+/**
+ * In-memory Lucene index over book titles and authors. Every word of a search
+ * term must prefix-match a word of the field; exact word matches rank higher.
+ */
+@Component
+public class BookSearchIndex implements SmartInitializingSingleton, DisposableBean {
+
+	private static final String ID = "id";
+
+	private static final String TITLE = "title";
+
+	private static final String AUTHOR = "author";
+
+	private static final int REBUILD_BATCH_SIZE = 1000;
+
+	/**
+	 * Deepest hit a page may reach; the collector keeps offset + size hits in
+	 * memory, so deeper pages must narrow the search instead.
+	 */
+	static final int MAX_RESULT_WINDOW = 10000;
+
+	private final BookRepository repository;
+
+	private final Analyzer analyzer;
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searcherManager;
+
+	public BookSearchIndex(BookRepository repository) {
+		this.repository = repository;
+		this.analyzer = new Analyzer() {
+			@Override
+			protected TokenStreamComponents createComponents(String fieldName) {
+				Tokenizer tokenizer = new StandardTokenizer();
+				return new TokenStreamComponents(tokenizer, new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer)));
+			}
+		};
+		try {
+			this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+			this.searcherManager = new SearcherManager(writer, null);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		rebuild();
+	}
+
+	public void rebuild() {
+		try {
+			writer.deleteAll();
+			Long after = 0L;
+			Slice<Book> slice;
+			do {
+				slice = repository.findAfter(after, null, null, null, null, PageRequest.of(0, REBUILD_BATCH_SIZE));
+				for(Book book : slice) {
+					writer.addDocument(toDocument(book));
+					after = book.getId();
+				}
+			} while(slice.hasNext());
+			writer.commit();
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void index(Book book) {
+		try {
+			writer.updateDocument(new Term(ID, book.getId().toString()), toDocument(book));
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void index(List<Book> books) {
+		try {
+			for(Book book : books) {
+				writer.updateDocument(new Term(ID, book.getId().toString()), toDocument(book));
+			}
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void remove(Long id) {
+		try {
+			writer.deleteDocuments(new Term(ID, id.toString()));
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void remove(Collection<Long> ids) {
+		try {
+			Term[] terms = new Term[ids.size()];
+			int i = 0;
+			for(Long id : ids) {
+				terms[i++] = new Term(ID, id.toString());
+			}
+			writer.deleteDocuments(terms);
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public Page<Long> search(String title, String author, Pageable pageable) {
+		BooleanQuery.Builder query = new BooleanQuery.Builder();
+		addField(query, TITLE, title);
+		addField(query, AUTHOR, author);
+		BooleanQuery built = query.build();
+		Query effective = built.clauses().isEmpty() ? new MatchAllDocsQuery() : built;
+
+		if(pageable.getOffset() + pageable.getPageSize() > MAX_RESULT_WINDOW) {
+			throw new BusinessException("A busca por texto alcança no máximo " + MAX_RESULT_WINDOW + " resultados.");
+		}
+		int offset = (int) pageable.getOffset();
+		try {
+			IndexSearcher searcher = searcherManager.acquire();
+			try {
+				TopScoreDocCollector collector = TopScoreDocCollector.create(offset + pageable.getPageSize(), Integer.MAX_VALUE);
+				searcher.search(effective, collector);
+				TopDocs topDocs = collector.topDocs(offset, pageable.getPageSize());
+				List<Long> ids = new ArrayList<Long>(topDocs.scoreDocs.length);
+				for(ScoreDoc scoreDoc : topDocs.scoreDocs) {
+					ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(ID)));
+				}
+				return new PageImpl<Long>(ids, pageable, collector.getTotalHits());
+			} finally {
+				searcherManager.release(searcher);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		searcherManager.close();
+		writer.close();
+	}
+
+	private void addField(BooleanQuery.Builder query, String field, String text) {
+		if(text == null || text.isBlank()) {
+			return;
+		}
+		try (TokenStream stream = analyzer.tokenStream(field, text)) {
+			CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			boolean tokenized = false;
+			while(stream.incrementToken()) {
+				tokenized = true;
+				Term token = new Term(field, term.toString());
+				query.add(new BooleanQuery.Builder()
+						.add(new BoostQuery(new TermQuery(token), 2f), Occur.SHOULD)
+						.add(new PrefixQuery(token), Occur.SHOULD)
+						.build(), Occur.MUST);
+			}
+			stream.end();
+			if(!tokenized) {
+				query.add(new MatchNoDocsQuery(), Occur.MUST);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Document toDocument(Book book) {
+		Document document = new Document();
+		document.add(new StringField(ID, book.getId().toString(), Field.Store.YES));
+		if(book.getTitle() != null) {
+			document.add(new TextField(TITLE, book.getTitle(), Field.Store.NO));
+		}
+		if(book.getAuthor() != null) {
+			document.add(new TextField(AUTHOR, book.getAuthor(), Field.Store.NO));
+		}
+		return document;
+	}
+
+}
@@ -1,11 +1,18 @@
 package br.com.richardeveloper.services;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookImportResult;
 
 public interface BookService {
 
@@ -13,13 +20,33 @@ public interface BookService {
 
 	public Optional<Book> findById(Long id);
 
+	public Optional<Long> findVersionById(Long id);
+
 	public void delete(Book book);
 
 	public Book update(Book book);
 
+	public Optional<Long> patch(Long id, Long version, Book changes);
+
 	public Page<Book> findByAuthorAndTitle(Book book, Pageable pageable);
 
+	public Page<Map<String, Object>> findByAuthorAndTitle(Book book, Set<String> fields, Pageable pageable);
+
+	public Slice<Book> findByAuthorAndTitle(Book book, Long afterId, int size);
+
 	public Optional<Book> findByIsbn(String isbn);
 
+	public Map<Long, Book> findAllById(Collection<Long> ids);
+
+	public Map<String, Book> findAllByIsbn(Collection<String> isbns);
+
+	public int deleteAllById(Collection<Long> ids);
+
+	public int updateAuthor(Collection<Long> ids, String author);
+
+	public List<BookImportResult> saveAll(List<Book> books);
+
+	public void exportAll(Consumer<Book> consumer);
+
 
 }
@@ -1,36 +1,92 @@
 package br.com.richardeveloper.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookImportResult;
+import br.com.richardeveloper.models.dto.BookImportResult.Status;
 import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.BookRepositoryCustom;
 import br.com.richardeveloper.resources.exceptions.BusinessException;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+	private static final Set<String> FIELDS = Set.of("id", "title", "author", "isbn");
+
+	private static final Set<String> INDEXED_FIELDS = Set.of("id", "title");
+
+	private static final Set<String> SEARCHABLE_FIELDS = Set.of("id", "title", "author");
+
+	private static final int IN_CLAUSE_CHUNK_SIZE = 512;
+
 	private BookRepository repository;
+
+	private BookCache cache;
+
+	private BookSearchIndex searchIndex;
+
+	private EntityManager entityManager;
 	
-	public BookServiceImpl(BookRepository repository) {
+	public BookServiceImpl(BookRepository repository, BookCache cache, BookSearchIndex searchIndex, EntityManager entityManager) {
 		this.repository = repository;
+		this.cache = cache;
+		this.searchIndex = searchIndex;
+		this.entityManager = entityManager;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Optional<Book> findById(Long id) {
-		return this.repository.findById(id);
+		return this.cache.findById(id, this.repository::findById);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Long> findVersionById(Long id) {
+		return this.repository.findVersionById(id);
 	}
 		
 	@Override
 	public Book save(Book book) {
-		validation(book);
-		return this.repository.save(book);
+		Book savedBook;
+		try {
+			savedBook = this.repository.saveAndFlush(book);
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		this.cache.invalidate(savedBook);
+		this.searchIndex.index(savedBook);
+		return savedBook;
 	}
 
 	@Override
@@ -38,7 +94,13 @@ public class BookServiceImpl implements BookService {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Book id cant be null");
 		}
-		this.repository.delete(book);
+		try {
+			this.repository.delete(book);
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		this.cache.invalidate(book);
+		this.searchIndex.remove(book.getId());
 	}
 
 	@Override
@@ -46,20 +108,151 @@ public class BookServiceImpl implements BookService {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Book id cant be null");
 		}
-		return this.repository.save(book);
+		Book updatedBook;
+		try {
+			updatedBook = this.repository.save(book);
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		this.cache.invalidate(book);
+		this.searchIndex.index(updatedBook);
+		return updatedBook;
+	}
+
+	@Override
+	@Transactional
+	public Optional<Long> patch(Long id, Long version, Book changes) {
+		Map<String, Object> columns = new LinkedHashMap<String, Object>(6);
+		putIfPresent(columns, "title", changes.getTitle());
+		putIfPresent(columns, "author", changes.getAuthor());
+		putIfPresent(columns, "isbn", changes.getIsbn());
+		if(columns.isEmpty()) {
+			throw new BusinessException("Informe ao menos um campo.");
+		}
+		int updated;
+		try {
+			updated = this.repository.updateFields(id, version, columns);
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		if(updated == 0) {
+			if(this.repository.findVersionById(id).isEmpty()) {
+				return Optional.empty();
+			}
+			throw new OptimisticLockingFailureException("Book " + id + " is no longer at version " + version);
+		}
+		this.cache.invalidateAll(List.of(id));
+		if(columns.containsKey("title") || columns.containsKey("author")) {
+			List<Book> reindexed = new ArrayList<Book>(1);
+			this.repository.findFieldsByIdIn(List.of(id), SEARCHABLE_FIELDS).forEach(row -> reindexed.add(Book.builder()
+					.id((Long) row.get("id"))
+					.title((String) row.get("title"))
+					.author((String) row.get("author"))
+					.build()));
+			afterCommit(() -> this.searchIndex.index(reindexed));
+		}
+		return version == null ? this.repository.findVersionById(id) : Optional.of(version + 1);
+	}
+
+	private void putIfPresent(Map<String, Object> columns, String field, String value) {
+		if(value == null) {
+			return;
+		}
+		if(value.isBlank()) {
+			throw new BusinessException("Campo " + field + " não pode ser vazio.");
+		}
+		columns.put(field, value);
+	}
+
+	@Override
+	@Transactional
+	public List<BookImportResult> saveAll(List<Book> books) {
+		Set<String> isbns = new HashSet<String>(books.size());
+		Set<String> titles = new HashSet<String>(books.size());
+		books.forEach(book -> {
+			isbns.add(book.getIsbn());
+			titles.add(book.getTitle());
+		});
+		Set<String> takenIsbns = new HashSet<String>(this.repository.findIsbnsIn(isbns));
+		Set<String> takenTitles = new HashSet<String>(this.repository.findTitlesIn(titles));
+
+		List<BookImportResult> results = new ArrayList<BookImportResult>(books.size());
+		List<Book> accepted = new ArrayList<Book>(books.size());
+		for(Book book : books) {
+			BookImportResult result = BookImportResult.builder().isbn(book.getIsbn()).build();
+			if(takenIsbns.contains(book.getIsbn())) {
+				result.setStatus(Status.DUPLICATED);
+				result.setMessage("Isbn já cadastrado.");
+			} else if(takenTitles.contains(book.getTitle())) {
+				result.setStatus(Status.DUPLICATED);
+				result.setMessage("Título já cadastrado.");
+			} else {
+				takenIsbns.add(book.getIsbn());
+				takenTitles.add(book.getTitle());
+				result.setStatus(Status.CREATED);
+				accepted.add(book);
+			}
+			results.add(result);
+		}
+
+		this.repository.saveAll(accepted);
+		this.repository.flush();
+		this.entityManager.clear();
+
+		List<Long> ids = new ArrayList<Long>(accepted.size());
+		int next = 0;
+		for(BookImportResult result : results) {
+			if(result.getStatus() == Status.CREATED) {
+				Book book = accepted.get(next++);
+				result.setId(book.getId());
+				ids.add(book.getId());
+			}
+		}
+		this.cache.invalidateAll(ids);
+		afterCommit(() -> this.searchIndex.index(accepted));
+		return results;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void exportAll(Consumer<Book> consumer) {
+		try (Stream<Book> books = this.repository.streamAll()) {
+			books.forEach(book -> {
+				consumer.accept(book);
+				this.entityManager.detach(book);
+			});
+		}
 	}
 
-	public void validation(Book book) {
-		if(repository.existsByIsbn(book.getIsbn())) {
-			throw new BusinessException("Isbn já cadastrado.");
+	private RuntimeException translate(DataIntegrityViolationException e) {
+		String message = String.valueOf(e.getMostSpecificCause().getMessage()).toUpperCase();
+		if(message.contains("UK_BOOK_ISBN")) {
+			return new BusinessException("Isbn já cadastrado.");
+		}
+		if(message.contains("UK_BOOK_TITLE")) {
+			return new BusinessException("Título já cadastrado.");
 		}
-		if(repository.existsByTitle(book.getTitle())) {
-			throw new BusinessException("Título já cadastrado.");
+		if(message.contains("FK_LOAN_BOOK")) {
+			return new BusinessException("Livro possui empréstimos.");
 		}
+		return e;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Page<Book> findByAuthorAndTitle(Book book, Pageable pageable) {
+		if(isTextSearch(book, pageable)) {
+			Page<Long> ids = searchIndex.search(book.getTitle(), book.getAuthor(), pageable);
+			Map<Long, Book> found = new HashMap<Long, Book>();
+			repository.findAllById(ids.getContent()).forEach(b -> found.put(b.getId(), b));
+			List<Book> books = new ArrayList<Book>(found.size());
+			ids.forEach(id -> {
+				if(found.containsKey(id)) {
+					books.add(found.get(id));
+				}
+			});
+			return new PageImpl<Book>(books, pageable, ids.getTotalElements());
+		}
 		Example<Book> example = Example.of(book, 
 				ExampleMatcher.matching()
 							  .withIgnoreCase()
@@ -69,10 +262,120 @@ public class BookServiceImpl implements BookService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public Page<Map<String, Object>> findByAuthorAndTitle(Book book, Set<String> fields, Pageable pageable) {
+		if(fields.isEmpty()) {
+			throw new BusinessException("Informe ao menos um campo.");
+		}
+		for(String field : fields) {
+			if(!FIELDS.contains(field)) {
+				throw new BusinessException("Campo inválido: " + field + ".");
+			}
+		}
+		if(isTextSearch(book, pageable)) {
+			Page<Long> ids = searchIndex.search(book.getTitle(), book.getAuthor(), pageable);
+			return new PageImpl<Map<String, Object>>(repository.findFieldsByIdIn(ids.getContent(), fields), pageable, ids.getTotalElements());
+		}
+		return repository.findFields(book, fields, pageable);
+	}
+
+	private boolean isTextSearch(Book book, Pageable pageable) {
+		return book.getId() == null && book.getIsbn() == null
+				&& (book.getTitle() != null || book.getAuthor() != null)
+				&& pageable.getSort().isUnsorted();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Slice<Book> findByAuthorAndTitle(Book book, Long afterId, int size) {
+		return repository.findAfter(afterId == null ? 0L : afterId, book.getId(),
+				BookRepositoryCustom.containing(book.getTitle()), BookRepositoryCustom.containing(book.getAuthor()),
+				BookRepositoryCustom.containing(book.getIsbn()),
+				PageRequest.of(0, size));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public Optional<Book> findByIsbn(String isbn) {
-		// TODO Auto-generated method stub
-		return null;
+		return this.cache.findByIsbn(isbn, this.repository::findByIsbn);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Map<Long, Book> findAllById(Collection<Long> ids) {
+		return this.cache.findAllById(ids, missing -> inChunks(missing, this.repository::findAllById));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Map<String, Book> findAllByIsbn(Collection<String> isbns) {
+		return this.cache.findAllByIsbn(isbns, missing -> inChunks(missing, this.repository::findByIsbnIn));
+	}
+
+	@Override
+	@Transactional
+	public int deleteAllById(Collection<Long> ids) {
+		List<Long> distinct = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+		int deleted = 0;
+		try {
+			for(List<Long> chunk : chunks(distinct)) {
+				deleted += this.repository.deleteByIdIn(chunk);
+			}
+		} catch (DataIntegrityViolationException e) {
+			throw translate(e);
+		}
+		this.cache.invalidateAll(distinct);
+		afterCommit(() -> this.searchIndex.remove(distinct));
+		return deleted;
+	}
+
+	@Override
+	@Transactional
+	public int updateAuthor(Collection<Long> ids, String author) {
+		if(author == null || author.isBlank()) {
+			throw new BusinessException("Autor deve ser informado.");
+		}
+		List<Long> distinct = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+		int updated = 0;
+		List<Book> reindexed = new ArrayList<Book>(distinct.size());
+		for(List<Long> chunk : chunks(distinct)) {
+			updated += this.repository.updateAuthorByIdIn(chunk, author);
+			this.repository.findFieldsByIdIn(chunk, INDEXED_FIELDS).forEach(row -> reindexed.add(Book.builder()
+					.id((Long) row.get("id"))
+					.title((String) row.get("title"))
+					.author(author)
+					.build()));
+		}
+		this.cache.invalidateAll(distinct);
+		afterCommit(() -> this.searchIndex.index(reindexed));
+		return updated;
+	}
+
+	private void afterCommit(Runnable action) {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
 	}
 
+	private <K> List<List<K>> chunks(List<K> keys) {
+		List<List<K>> chunks = new ArrayList<List<K>>(keys.size() / IN_CLAUSE_CHUNK_SIZE + 1);
+		for(int from = 0; from < keys.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+			chunks.add(keys.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, keys.size())));
+		}
+		return chunks;
+	}
+
+	private <K> List<Book> inChunks(List<K> keys, Function<List<K>, List<Book>> query) {
+		List<Book> books = new ArrayList<Book>(keys.size());
+		chunks(keys).forEach(chunk -> books.addAll(query.apply(chunk)));
+		return books;
+	}
 
 }
@@ -0,0 +1,42 @@
+package br.com.richardeveloper.services;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.com.richardeveloper.repositories.IdempotencyRecordRepository;
+
+/*
+ * Deletes persisted idempotent responses older than the store ttl. Expired
+ * rows are already ignored on lookup; this only keeps the table bounded.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "library.idempotency.persistent", havingValue = "true")
+public class IdempotencyPurgeJob {
+
+	private static final Logger log = LoggerFactory.getLogger(IdempotencyPurgeJob.class);
+
+	private IdempotencyRecordRepository repository;
+
+	private Duration ttl;
+
+	public IdempotencyPurgeJob(IdempotencyRecordRepository repository, @Value("${library.idempotency.ttl:24h}") Duration ttl) {
+		this.repository = repository;
+		this.ttl = ttl;
+	}
+
+	@Scheduled(fixedDelayString = "${library.idempotency.purge-delay:600000}")
+	public void run() {
+		int deleted = repository.deleteCreatedBefore(Instant.now().minus(ttl));
+		log.debug("Purged {} idempotent responses", deleted);
+	}
+
+}
@@ -0,0 +1,206 @@
+package br.com.richardeveloper.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import br.com.richardeveloper.models.IdempotencyRecord;
+import br.com.richardeveloper.repositories.IdempotencyRecordRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.resources.exceptions.IdempotencyConflictException;
+
+/**
+ * Remembers the response of requests sent with an {@code Idempotency-Key}.
+ * The first request for a key runs the action; retries, and requests that
+ * arrive while it is still running, wait for it and get the same response.
+ * A failed action is forgotten so the client can retry it. With
+ * {@code library.idempotency.persistent=true} responses are also written to
+ * the database and survive restarts and cache evictions.
+ */
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+	public static final String HEADER = "Idempotency-Key";
+
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+	private final Cache<String, CompletableFuture<IdempotencyRecord>> responses;
+
+	private final ObjectMapper objectMapper;
+
+	private final IdempotencyRecordRepository records;
+
+	private final Duration ttl;
+
+	private final Duration waitTimeout;
+
+	public IdempotencyStore(ObjectMapper objectMapper, ObjectProvider<IdempotencyRecordRepository> records,
+			@Value("${library.idempotency.maximum-size:10000}") long maximumSize,
+			@Value("${library.idempotency.ttl:24h}") Duration ttl,
+			@Value("${library.idempotency.wait-timeout:30s}") Duration waitTimeout,
+			@Value("${library.idempotency.persistent:false}") boolean persistent) {
+		this.objectMapper = objectMapper;
+		this.records = persistent ? records.getIfAvailable() : null;
+		this.ttl = ttl;
+		this.waitTimeout = waitTimeout;
+		this.responses = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+	}
+
+	public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<T> type, Supplier<ResponseEntity<T>> action) {
+		if(key == null) {
+			return action.get();
+		}
+		if(key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+			throw new BusinessException(HEADER + " deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres.");
+		}
+		String id = scope + ":" + key;
+		String fingerprint = fingerprint(request);
+		CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<IdempotencyRecord>();
+		CompletableFuture<IdempotencyRecord> existing = responses.asMap().putIfAbsent(id, mine);
+		if(existing != null) {
+			return replay(await(existing), fingerprint, type);
+		}
+		ResponseEntity<T> response = null;
+		IdempotencyRecord record;
+		try {
+			Optional<IdempotencyRecord> stored = findStored(id);
+			if(stored.isPresent()) {
+				record = stored.get();
+			} else {
+				response = action.get();
+				record = IdempotencyRecord.builder()
+						.key(id)
+						.fingerprint(fingerprint)
+						.status(response.getStatusCodeValue())
+						.body(write(response.getBody()))
+						.createdAt(Instant.now())
+						.build();
+			}
+		} catch (RuntimeException | Error e) {
+			responses.asMap().remove(id, mine);
+			mine.completeExceptionally(e);
+			throw e;
+		}
+		mine.complete(record);
+		if(response == null) {
+			return replay(record, fingerprint, type);
+		}
+		store(record);
+		return response;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, responses, "idempotency");
+	}
+
+	private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> future) {
+		try {
+			return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new IdempotencyConflictException("Requisição com a mesma " + HEADER + " ainda em processamento.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IdempotencyConflictException("Requisição com a mesma " + HEADER + " ainda em processamento.");
+		}
+	}
+
+	private <T> ResponseEntity<T> replay(IdempotencyRecord record, String fingerprint, Class<T> type) {
+		if(!record.getFingerprint().equals(fingerprint)) {
+			throw new IdempotencyConflictException(HEADER + " já utilizada com outra requisição.");
+		}
+		try {
+			T body = record.getBody() == null ? null : objectMapper.readValue(record.getBody(), type);
+			return ResponseEntity.status(HttpStatus.valueOf(record.getStatus()))
+					.header(REPLAYED_HEADER, "true")
+					.body(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Optional<IdempotencyRecord> findStored(String id) {
+		if(records == null) {
+			return Optional.empty();
+		}
+		Instant oldest = Instant.now().minus(ttl);
+		return records.findById(id).filter(record -> record.getCreatedAt().isAfter(oldest));
+	}
+
+	/*
+	 * The response has already been sent to the in-memory waiters; failing to
+	 * persist it only costs durability, so it is logged rather than thrown.
+	 */
+	private void store(IdempotencyRecord record) {
+		if(records == null) {
+			return;
+		}
+		try {
+			records.save(record);
+		} catch (RuntimeException e) {
+			log.warn("Could not persist idempotent response {}", record.getKey(), e);
+		}
+	}
+
+	private String fingerprint(Object request) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for(byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String write(Object body) {
+		try {
+			return body == null ? null : objectMapper.writeValueAsString(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package br.com.richardeveloper.services;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import br.com.richardeveloper.models.Loan;
+
+/*
+ * Walks late loans in keyset batches and hands each batch to a fixed pool.
+ * The pool queue holds as many batches as there are workers and the scanning
+ * thread runs a batch itself when the queue is full, so at most
+ * (2 * pool-size + 1) * batch-size loans are held in memory at any time.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "library.loans.late.job.enabled", havingValue = "true")
+public class LateLoanJob implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(LateLoanJob.class);
+
+	private LoanService service;
+
+	private int days;
+
+	private int batchSize;
+
+	private ThreadPoolExecutor executor;
+
+	public LateLoanJob(LoanService service,
+			@Value("${library.loans.late.days:14}") int days,
+			@Value("${library.loans.late.job.batch-size:500}") int batchSize,
+			@Value("${library.loans.late.job.pool-size:4}") int poolSize) {
+		this.service = service;
+		this.days = days;
+		this.batchSize = batchSize;
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(poolSize), new CustomizableThreadFactory("late-loans-"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@Scheduled(initialDelayString = "${library.loans.late.job.initial-delay:60000}",
+			fixedDelayString = "${library.loans.late.job.delay:3600000}")
+	public void run() {
+		scan(LocalDate.now().minusDays(days));
+	}
+
+	int scan(LocalDate dueBefore) {
+		long started = System.nanoTime();
+		Phaser pending = new Phaser(1);
+		AtomicInteger processed = new AtomicInteger();
+		Loan after = null;
+		Slice<Loan> batch;
+		do {
+			batch = service.findLate(dueBefore, after, batchSize);
+			List<Loan> loans = batch.getContent();
+			if(loans.isEmpty()) {
+				break;
+			}
+			after = loans.get(loans.size() - 1);
+			pending.register();
+			executor.execute(() -> {
+				try {
+					processed.addAndGet(process(loans));
+				} catch (RuntimeException e) {
+					log.error("Failed to process {} late loans starting at loan {}", loans.size(), loans.get(0).getId(), e);
+				} finally {
+					pending.arriveAndDeregister();
+				}
+			});
+		} while(batch.hasNext());
+		pending.arriveAndAwaitAdvance();
+		log.info("Processed {} loans due before {} in {} ms", processed.get(), dueBefore,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return processed.get();
+	}
+
+	int process(List<Loan> loans) {
+		for(Loan loan : loans) {
+			log.debug("Loan {} of book {} to {} is late since {}", loan.getId(), loan.getBook().getIsbn(),
+					loan.getCustomer(), loan.getLoanDate());
+		}
+		return loans.size();
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+}
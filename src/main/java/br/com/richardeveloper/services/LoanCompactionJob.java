@@ -0,0 +1,52 @@
+package br.com.richardeveloper.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * Moves returned loans into the history table one batch per transaction,
+ * until a batch comes back short. Short transactions keep row locks and undo
+ * small while checkouts keep running against the same table.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "library.loans.compaction.enabled", havingValue = "true")
+public class LoanCompactionJob {
+
+	private static final Logger log = LoggerFactory.getLogger(LoanCompactionJob.class);
+
+	private LoanService service;
+
+	private int batchSize;
+
+	public LoanCompactionJob(LoanService service, @Value("${library.loans.compaction.batch-size:1000}") int batchSize) {
+		this.service = service;
+		this.batchSize = batchSize;
+	}
+
+	@Scheduled(initialDelayString = "${library.loans.compaction.initial-delay:60000}",
+			fixedDelayString = "${library.loans.compaction.delay:600000}")
+	public void run() {
+		compact();
+	}
+
+	int compact() {
+		long started = System.nanoTime();
+		int total = 0;
+		int moved;
+		do {
+			moved = service.archiveReturned(batchSize);
+			total += moved;
+		} while(moved == batchSize);
+		log.info("Archived {} returned loans in {} ms", total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return total;
+	}
+
+}
@@ -0,0 +1,504 @@
+package br.com.richardeveloper.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BulkheadFullException;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+/**
+ * Write-behind log of checkouts and returns. Events go into a bounded ring
+ * buffer and a single writer thread group-commits whatever has piled up, up
+ * to {@code batch-size} events per transaction, as JDBC batches. With
+ * {@code durability=commit} a request waits for the commit of the batch that
+ * carries its event; with {@code durability=enqueue} it returns once the event
+ * is queued, so a crash loses at most {@code capacity} acknowledged events.
+ * No request waits longer than {@code commit-timeout}, and events still queued
+ * when {@code shutdown-timeout} runs out fail instead of being left pending.
+ * Like a synchronous checkout, a written checkout bumps its book's version and
+ * evicts it from the {@link BookCache}, but only once its batch commits.
+ * <p>
+ * An event that fails to write, e.g. a checkout of a book deleted while it was
+ * queued, is dropped and counted in {@code library.loans.events.failed}. With
+ * {@code durability=enqueue} the client was already told it succeeded.
+ * <p>
+ * Conflicts are checked against the database plus the events still queued,
+ * under a lock per book. That lock is local to this process, so only one
+ * instance may write loans while this mode is enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "library.loans.write-behind.enabled", havingValue = "true")
+public class LoanEventLog implements MeterBinder, SmartInitializingSingleton, DisposableBean {
+
+	public enum Durability { ENQUEUE, COMMIT }
+
+	private static final String INSERT = "insert into loan (id, book_id, customer, loan_date, returned) values (?, ?, ?, ?, ?)";
+
+	private static final String RETURN = "update loan set returned = true where id = ? and returned = false";
+
+	private static final String BUMP_VERSION = "update book set version = version + 1 where id = ?";
+
+	private static final int LOCK_STRIPES = 64;
+
+	private static final Logger log = LoggerFactory.getLogger(LoanEventLog.class);
+
+	private final BlockingQueue<LoanEvent> queue;
+
+	/*
+	 * Latest queued state of each book's most recent loan and of each loan,
+	 * removed once the event that put it is committed. While present they win
+	 * over the database, which has not seen those events yet.
+	 */
+	private final ConcurrentMap<Long, Loan> pendingByBook = new ConcurrentHashMap<Long, Loan>();
+
+	private final ConcurrentMap<Long, Loan> pendingById = new ConcurrentHashMap<Long, Loan>();
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	/*
+	 * Enqueuers hold the read side while they check closed and offer, so once
+	 * destroy has taken the write side no event can slip in behind the drain.
+	 */
+	private final ReadWriteLock closing = new ReentrantReadWriteLock();
+
+	private final LoanRepository repository;
+
+	private final BookRepository bookRepository;
+
+	private final BookCache bookCache;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	private final Durability durability;
+
+	private final Duration enqueueTimeout;
+
+	private final Duration shutdownTimeout;
+
+	private final Duration commitTimeout;
+
+	private final AtomicLong written = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private final Thread writer;
+
+	private volatile boolean closed;
+
+	private volatile DistributionSummary batches;
+
+	private volatile Timer commits;
+
+	public LoanEventLog(LoanRepository repository, BookRepository bookRepository, BookCache bookCache,
+			JdbcTemplate jdbcTemplate, EntityManager entityManager, PlatformTransactionManager transactionManager,
+			@Value("${library.loans.write-behind.capacity:10000}") int capacity,
+			@Value("${library.loans.write-behind.batch-size:500}") int batchSize,
+			@Value("${library.loans.write-behind.durability:commit}") Durability durability,
+			@Value("${library.loans.write-behind.enqueue-timeout:100ms}") Duration enqueueTimeout,
+			@Value("${library.loans.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+			@Value("${library.loans.write-behind.commit-timeout:10s}") Duration commitTimeout) {
+		this.repository = repository;
+		this.bookRepository = bookRepository;
+		this.bookCache = bookCache;
+		this.jdbcTemplate = jdbcTemplate;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.queue = new ArrayBlockingQueue<LoanEvent>(capacity);
+		this.batchSize = batchSize;
+		this.durability = durability;
+		this.enqueueTimeout = enqueueTimeout;
+		this.shutdownTimeout = shutdownTimeout;
+		this.commitTimeout = commitTimeout;
+		for(int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+		this.writer = new Thread(this::drain, "loan-event-writer");
+		this.writer.setDaemon(true);
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		writer.start();
+	}
+
+	public Loan checkout(Loan loan) {
+		Long bookId = loan.getBook().getId();
+		LoanEvent event;
+		synchronized (lock(bookId)) {
+			Loan latest = pendingByBook.get(bookId);
+			Long id = transactionTemplate.execute(status -> {
+				if(bookRepository.findVersionById(bookId).isEmpty()) {
+					throw new BusinessException("Book not found");
+				}
+				boolean loaned = latest != null ? !latest.getReturned() : repository.existsByBookIdAndReturnedFalse(bookId);
+				if(loaned) {
+					throw new BusinessException("Book already loaned");
+				}
+				return nextId(loan);
+			});
+			Loan checkedOut = Loan.builder()
+					.id(id)
+					.book(loan.getBook())
+					.customer(loan.getCustomer())
+					.loanDate(loan.getLoanDate())
+					.returned(false)
+					.build();
+			event = enqueue(new LoanEvent(true, checkedOut));
+		}
+		await(event);
+		return event.loan;
+	}
+
+	/*
+	 * The loan is looked up before taking its book's lock, since the book is
+	 * not known yet, and checked again once the lock is held.
+	 */
+	public boolean returnLoan(Long id) {
+		Loan known = pendingById.get(id);
+		Long bookId = known != null ? known.getBook().getId() : repository.findBookIdById(id).orElse(null);
+		if(bookId == null) {
+			return false;
+		}
+		LoanEvent event;
+		synchronized (lock(bookId)) {
+			Loan latest = pendingByBook.get(bookId);
+			boolean open = latest != null
+					? latest.getId().equals(id) && !latest.getReturned()
+					: repository.existsByIdAndReturnedFalse(id);
+			if(!open) {
+				throw new BusinessException("Loan already returned");
+			}
+			Loan returned = Loan.builder()
+					.id(id)
+					.book(Book.builder().id(bookId).build())
+					.returned(true)
+					.build();
+			event = enqueue(new LoanEvent(false, returned));
+		}
+		await(event);
+		return true;
+	}
+
+	/**
+	 * Waits until every event queued so far is committed or has failed. A
+	 * marker goes through the buffer behind them and is completed with the
+	 * batch that carries it.
+	 */
+	public void flush() throws InterruptedException {
+		LoanEvent marker = new LoanEvent(false, null);
+		offer(marker);
+		waitFor(marker);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("library.loans.events.queued", queue, BlockingQueue::size)
+				.description("Loan events waiting to be written")
+				.register(registry);
+		FunctionCounter.builder("library.loans.events.written", written, AtomicLong::get)
+				.register(registry);
+		FunctionCounter.builder("library.loans.events.failed", failed, AtomicLong::get)
+				.description("Loan events dropped after their write failed")
+				.register(registry);
+		commits = Timer.builder("library.loans.events.commit")
+				.register(registry);
+		batches = DistributionSummary.builder("library.loans.events.batch")
+				.baseUnit("events")
+				.register(registry);
+	}
+
+	/*
+	 * The web server has stopped taking requests by the time beans are
+	 * destroyed; everything still queued is written before the data source
+	 * goes away. Whatever the writer did not reach in time is failed, so no
+	 * caller keeps waiting on it.
+	 */
+	@Override
+	public void destroy() throws InterruptedException {
+		closing.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			closing.writeLock().unlock();
+		}
+		writer.join(shutdownTimeout.toMillis());
+		List<LoanEvent> left = new ArrayList<LoanEvent>();
+		queue.drainTo(left);
+		if(left.isEmpty()) {
+			return;
+		}
+		writer.interrupt();
+		IllegalStateException error = new IllegalStateException("Loan event log closed before the event was written");
+		int dropped = 0;
+		for(LoanEvent event : left) {
+			if(event.loan != null) {
+				dropped++;
+			}
+			complete(event, error);
+		}
+		failed.addAndGet(dropped);
+		log.warn("{} loan events not written at shutdown", dropped);
+	}
+
+	private Object lock(Long bookId) {
+		return locks[Math.floorMod(bookId.hashCode(), LOCK_STRIPES)];
+	}
+
+	/*
+	 * Uses the entity's own generator, so ids come from the same pooled
+	 * sequence as synchronous checkouts and only hit the database once per
+	 * allocation.
+	 */
+	private Long nextId(Loan loan) {
+		SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+		return (Long) session.getFactory().getMetamodel().entityPersister(Loan.class)
+				.getIdentifierGenerator().generate(session, loan);
+	}
+
+	/*
+	 * The pending state is published after the event is queued. The writer
+	 * completes an event before clearing its state, so if it already got
+	 * there the state is cleared here instead.
+	 */
+	private LoanEvent enqueue(LoanEvent event) {
+		offer(event);
+		pendingByBook.put(event.loan.getBook().getId(), event.loan);
+		pendingById.put(event.loan.getId(), event.loan);
+		if(event.written.isDone()) {
+			clear(event);
+		}
+		return event;
+	}
+
+	private void offer(LoanEvent event) {
+		closing.readLock().lock();
+		try {
+			if(closed || !queue.offer(event, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new BulkheadFullException("loan-events");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BulkheadFullException("loan-events");
+		} finally {
+			closing.readLock().unlock();
+		}
+	}
+
+	private void await(LoanEvent event) {
+		if(durability == Durability.ENQUEUE) {
+			return;
+		}
+		try {
+			waitFor(event);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new QueryTimeoutException("Interrupted while waiting for the loan event to be written");
+		}
+	}
+
+	/*
+	 * On timeout the event stays queued and may still be written; the caller
+	 * only learns that its outcome is unknown.
+	 */
+	private void waitFor(LoanEvent event) throws InterruptedException {
+		try {
+			event.written.get(commitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("Loan event not written within " + commitTimeout);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void drain() {
+		List<LoanEvent> batch = new ArrayList<LoanEvent>(batchSize);
+		while(true) {
+			LoanEvent first;
+			try {
+				first = queue.poll(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if(first == null) {
+				if(closed && queue.isEmpty()) {
+					return;
+				}
+				continue;
+			}
+			batch.add(first);
+			queue.drainTo(batch, batchSize - 1);
+			write(batch);
+			batch.clear();
+		}
+	}
+
+	/*
+	 * Checkouts are inserted before returns are applied, so a loan returned
+	 * in the same batch it was created in still ends up returned. When the
+	 * batch fails each event is retried on its own, so a single bad event
+	 * does not take the others with it.
+	 */
+	private void write(List<LoanEvent> batch) {
+		int size = 0;
+		for(LoanEvent event : batch) {
+			if(event.loan != null) {
+				size++;
+			}
+		}
+		long started = System.nanoTime();
+		try {
+			if(size > 0) {
+				transactionTemplate.executeWithoutResult(status -> apply(batch));
+				record(size, started);
+				invalidate(batch);
+			}
+			batch.forEach(event -> complete(event, null));
+		} catch (RuntimeException e) {
+			for(LoanEvent event : batch) {
+				if(event.loan == null) {
+					complete(event, null);
+					continue;
+				}
+				long retried = System.nanoTime();
+				try {
+					transactionTemplate.executeWithoutResult(status -> apply(List.of(event)));
+					record(1, retried);
+					invalidate(List.of(event));
+					complete(event, null);
+				} catch (RuntimeException single) {
+					failed.incrementAndGet();
+					log.error("Dropping loan event {} of loan {} for book {}", event.checkout ? "checkout" : "return",
+							event.loan.getId(), event.loan.getBook().getId(), single);
+					complete(event, single);
+				}
+			}
+		}
+	}
+
+	private void apply(List<LoanEvent> events) {
+		List<Object[]> inserts = new ArrayList<Object[]>(events.size());
+		List<Object[]> returns = new ArrayList<Object[]>(events.size());
+		List<Object[]> bumps = new ArrayList<Object[]>(events.size());
+		for(LoanEvent event : events) {
+			Loan loan = event.loan;
+			if(loan == null) {
+				continue;
+			}
+			if(event.checkout) {
+				inserts.add(new Object[] { loan.getId(), loan.getBook().getId(), loan.getCustomer(), loan.getLoanDate(), false });
+				bumps.add(new Object[] { loan.getBook().getId() });
+			} else {
+				returns.add(new Object[] { loan.getId() });
+			}
+		}
+		if(!inserts.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT, inserts);
+		}
+		if(!returns.isEmpty()) {
+			jdbcTemplate.batchUpdate(RETURN, returns);
+		}
+		if(!bumps.isEmpty()) {
+			jdbcTemplate.batchUpdate(BUMP_VERSION, bumps);
+		}
+	}
+
+	private void invalidate(List<LoanEvent> events) {
+		List<Long> bookIds = new ArrayList<Long>(events.size());
+		for(LoanEvent event : events) {
+			if(event.checkout && event.loan != null) {
+				bookIds.add(event.loan.getBook().getId());
+			}
+		}
+		if(!bookIds.isEmpty()) {
+			bookCache.invalidateAll(bookIds);
+		}
+	}
+
+	private void record(int size, long started) {
+		written.addAndGet(size);
+		if(batches != null) {
+			batches.record(size);
+			commits.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void complete(LoanEvent event, RuntimeException error) {
+		if(error == null) {
+			event.written.complete(null);
+		} else {
+			event.written.completeExceptionally(error);
+		}
+		clear(event);
+	}
+
+	private void clear(LoanEvent event) {
+		if(event.loan == null) {
+			return;
+		}
+		pendingByBook.remove(event.loan.getBook().getId(), event.loan);
+		pendingById.remove(event.loan.getId(), event.loan);
+	}
+
+	private static final class LoanEvent {
+
+		private final boolean checkout;
+
+		private final Loan loan;
+
+		private final CompletableFuture<Void> written = new CompletableFuture<Void>();
+
+		private LoanEvent(boolean checkout, Loan loan) {
+			this.checkout = checkout;
+			this.loan = loan;
+		}
+
+	}
+
+}
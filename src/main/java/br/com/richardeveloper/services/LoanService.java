@@ -1,9 +1,21 @@
 package br.com.richardeveloper.services;
 
+import java.time.LocalDate;
+
+import org.springframework.data.domain.Slice;
+
 import br.com.richardeveloper.models.Loan;
 
 public interface LoanService {
 
 	public Loan save(Loan loan);
 
+	public boolean returnLoan(Long id);
+
+	public Slice<Loan> findLate(LocalDate dueBefore, Loan after, int size);
+
+	public Slice<Loan> findHistory(String customer, Long bookId, Loan after, int size);
+
+	public int archiveReturned(int batchSize);
+
 }
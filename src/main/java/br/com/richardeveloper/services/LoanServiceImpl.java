@@ -0,0 +1,192 @@
+package br.com.richardeveloper.services;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.models.LoanHistory;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanHistoryRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@Service
+public class LoanServiceImpl implements LoanService {
+
+	static final int MAX_ATTEMPTS = 3;
+
+	private static final Comparator<Loan> NEWEST_FIRST = Comparator.comparing(Loan::getLoanDate)
+			.thenComparing(Loan::getId)
+			.reversed();
+
+	private LoanRepository repository;
+
+	private LoanHistoryRepository historyRepository;
+
+	private BookRepository bookRepository;
+
+	private BookCache bookCache;
+
+	private TransactionTemplate transactionTemplate;
+
+	private LoanEventLog eventLog;
+
+	public LoanServiceImpl(LoanRepository repository, LoanHistoryRepository historyRepository, BookRepository bookRepository,
+			BookCache bookCache, PlatformTransactionManager transactionManager, ObjectProvider<LoanEventLog> eventLog) {
+		this.repository = repository;
+		this.historyRepository = historyRepository;
+		this.bookRepository = bookRepository;
+		this.bookCache = bookCache;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.eventLog = eventLog.getIfAvailable();
+	}
+
+	/*
+	 * Each attempt bumps the book version with a conditional update before
+	 * checking for an open loan. The update holds the row lock until commit, so
+	 * concurrent checkouts of the same book serialize on that row only and the
+	 * losers either see a stale version (and retry) or the winner's loan.
+	 */
+	@Override
+	public Loan save(Loan loan) {
+		if(eventLog != null) {
+			return eventLog.checkout(loan);
+		}
+		for(int attempt = 1; ; attempt++) {
+			try {
+				Loan saved = transactionTemplate.execute(status -> checkout(loan));
+				bookCache.invalidate(loan.getBook());
+				return saved;
+			} catch (ConcurrencyFailureException e) {
+				if(attempt == MAX_ATTEMPTS) {
+					throw new BusinessException("Book already loaned");
+				}
+				backoff(attempt);
+			}
+		}
+	}
+
+	@Override
+	public boolean returnLoan(Long id) {
+		boolean returned = eventLog != null ? eventLog.returnLoan(id) : transactionTemplate.execute(status -> {
+			if(repository.markReturned(id) == 1) {
+				return true;
+			}
+			if(repository.existsById(id)) {
+				throw new BusinessException("Loan already returned");
+			}
+			return false;
+		});
+		if(!returned && historyRepository.existsById(id)) {
+			throw new BusinessException("Loan already returned");
+		}
+		return returned;
+	}
+
+	private Loan checkout(Loan loan) {
+		Book book = loan.getBook();
+		Long version = bookRepository.findVersionById(book.getId())
+				.orElseThrow(() -> new BusinessException("Book not found"));
+		if(bookRepository.incrementVersion(book.getId(), version) == 0) {
+			throw new OptimisticLockingFailureException("Book " + book.getId() + " changed during checkout");
+		}
+		if(repository.existsByBookIdAndReturnedFalse(book.getId())) {
+			throw new BusinessException("Book already loaned");
+		}
+		if(loan.getReturned() == null) {
+			loan.setReturned(false);
+		}
+		loan.setId(null);
+		return repository.save(loan);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Slice<Loan> findLate(LocalDate dueBefore, Loan after, int size) {
+		if(after == null) {
+			return repository.findLate(dueBefore, PageRequest.of(0, size));
+		}
+		return repository.findLateAfter(dueBefore, after.getLoanDate(), after.getId(), PageRequest.of(0, size));
+	}
+
+	/*
+	 * Reads the active table before the history one: a loan archived in
+	 * between then shows up twice, and is deduplicated, rather than not at
+	 * all.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Slice<Loan> findHistory(String customer, Long bookId, Loan after, int size) {
+		LocalDate afterDate = after == null ? null : after.getLoanDate();
+		Long afterId = after == null ? null : after.getId();
+		PageRequest page = PageRequest.of(0, size + 1);
+		List<Loan> active = customer != null
+				? repository.findByCustomerBefore(customer, afterDate, afterId, page)
+				: repository.findByBookBefore(bookId, afterDate, afterId, page);
+		List<LoanHistory> archived = customer != null
+				? historyRepository.findByCustomerBefore(customer, afterDate, afterId, page)
+				: historyRepository.findByBookBefore(bookId, afterDate, afterId, page);
+		Map<Long, Loan> merged = new LinkedHashMap<Long, Loan>(active.size() + archived.size());
+		active.forEach(loan -> merged.put(loan.getId(), loan));
+		archived.forEach(history -> merged.putIfAbsent(history.getId(), Loan.builder()
+				.id(history.getId())
+				.book(Book.builder().id(history.getBookId()).isbn(history.getIsbn()).build())
+				.customer(history.getCustomer())
+				.loanDate(history.getLoanDate())
+				.returned(true)
+				.build()));
+		List<Loan> loans = new ArrayList<Loan>(merged.values());
+		loans.sort(NEWEST_FIRST);
+		boolean hasNext = loans.size() > size;
+		return new SliceImpl<Loan>(hasNext ? loans.subList(0, size) : loans, PageRequest.of(0, size), hasNext);
+	}
+
+	/*
+	 * Copies one batch of returned loans into the history and deletes them
+	 * from the active table in the same transaction, keeping the table the
+	 * checkout path queries down to open loans.
+	 */
+	@Override
+	@Transactional
+	public int archiveReturned(int batchSize) {
+		List<Long> ids = repository.findReturnedIds(PageRequest.of(0, batchSize));
+		if(ids.isEmpty()) {
+			return 0;
+		}
+		int archived = historyRepository.archive(ids, Instant.now());
+		int deleted = repository.deleteReturnedByIdIn(ids);
+		if(archived != deleted) {
+			throw new IllegalStateException("Archived " + archived + " loans but deleted " + deleted);
+		}
+		return deleted;
+	}
+
+	private void backoff(int attempt) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextInt(1, 5 * attempt + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException("Book already loaned");
+		}
+	}
+
+}
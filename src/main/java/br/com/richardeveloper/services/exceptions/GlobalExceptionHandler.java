@@ -1,5 +1,7 @@
 package br.com.richardeveloper.services.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -8,7 +10,9 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import br.com.richardeveloper.resources.exceptions.ApiErrors;
+import br.com.richardeveloper.resources.exceptions.BulkheadFullException;
 import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.resources.exceptions.IdempotencyConflictException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -24,5 +28,22 @@ public class GlobalExceptionHandler {
 	public ResponseEntity<ApiErrors> handleValidationException(BusinessException e) {
 		return new ResponseEntity<ApiErrors>(new ApiErrors(e), HttpStatus.BAD_REQUEST);
 	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<ApiErrors> handleConflictException(OptimisticLockingFailureException e) {
+		return new ResponseEntity<ApiErrors>(new ApiErrors("Registro alterado por outra requisição."), HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler(IdempotencyConflictException.class)
+	public ResponseEntity<ApiErrors> handleIdempotencyConflictException(IdempotencyConflictException e) {
+		return new ResponseEntity<ApiErrors>(new ApiErrors(e.getMessage()), HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler(BulkheadFullException.class)
+	public ResponseEntity<ApiErrors> handleBulkheadFullException(BulkheadFullException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(new ApiErrors("Servidor ocupado, tente novamente."));
+	}
 	
 }
@@ -0,0 +1,93 @@
+package br.com.richardeveloper.bulkhead;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import br.com.richardeveloper.controllers.BookController;
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.resources.exceptions.BulkheadFullException;
+
+class BulkheadInterceptorTest {
+
+	private Bulkhead reads;
+
+	private Bulkhead searches;
+
+	private Bulkhead writes;
+
+	private BulkheadInterceptor interceptor;
+
+	@BeforeEach
+	public void setUp() {
+		reads = new Bulkhead("reads", 2, 0, Duration.ZERO);
+		searches = new Bulkhead("searches", 1, 0, Duration.ZERO);
+		writes = new Bulkhead("writes", 1, 1, Duration.ofMillis(10));
+		interceptor = new BulkheadInterceptor(reads, searches, writes);
+	}
+
+	@Test
+	@DisplayName("Deve separar leituras, buscas e escritas")
+	public void classifyRequestsTest() throws Exception {
+		
+		HandlerMethod findById = handler("findById", Long.class, String.class);
+		HandlerMethod search = handler("findByAuthorAndTitle", BookDTO.class, Pageable.class, String.class);
+		HandlerMethod delete = handler("delete", Long.class);
+		
+		assertThat(interceptor.bulkheadFor(new MockHttpServletRequest("GET", "/api/books/1"), findById)).isSameAs(reads);
+		assertThat(interceptor.bulkheadFor(new MockHttpServletRequest("GET", "/api/books"), search)).isSameAs(searches);
+		assertThat(interceptor.bulkheadFor(new MockHttpServletRequest("DELETE", "/api/books/1"), delete)).isSameAs(writes);
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar buscas quando saturado sem afetar leituras")
+	public void rejectWhenSaturatedTest() throws Exception {
+		
+		HandlerMethod search = handler("findByAuthorAndTitle", BookDTO.class, Pageable.class, String.class);
+		HandlerMethod findById = handler("findById", Long.class, String.class);
+		MockHttpServletRequest running = new MockHttpServletRequest("GET", "/api/books");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		
+		interceptor.preHandle(running, response, search);
+		Throwable rejected = catchThrowable(() -> interceptor.preHandle(new MockHttpServletRequest("GET", "/api/books"), response, search));
+		boolean read = interceptor.preHandle(new MockHttpServletRequest("GET", "/api/books/1"), response, findById);
+		
+		assertThat(rejected).isInstanceOf(BulkheadFullException.class);
+		assertThat(searches.getRejected()).isEqualTo(1);
+		assertThat(read).isTrue();
+		assertThat(reads.getActive()).isEqualTo(1);
+		
+		interceptor.afterCompletion(running, response, search, null);
+		
+		assertThat(searches.getActive()).isZero();
+		assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/books"), response, search)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve aguardar na fila até o tempo máximo antes de rejeitar")
+	public void queuedWaitTest() {
+		
+		assertThat(writes.tryAcquire()).isTrue();
+		
+		long started = System.nanoTime();
+		assertThat(writes.tryAcquire()).isFalse();
+		
+		assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+		assertThat(writes.getQueued()).isZero();
+		assertThat(writes.getRejected()).isEqualTo(1);
+	}
+
+	private HandlerMethod handler(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+		return new HandlerMethod(new Object(), BookController.class.getMethod(name, parameterTypes));
+	}
+
+}
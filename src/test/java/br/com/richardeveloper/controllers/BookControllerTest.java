@@ -5,9 +5,15 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,13 +24,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -32,14 +43,22 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookBulkRequest;
 import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.models.dto.BookImportReport;
+import br.com.richardeveloper.models.dto.BookImportResult;
+import br.com.richardeveloper.models.dto.BookImportResult.Status;
+import br.com.richardeveloper.models.dto.BookLookupRequest;
 import br.com.richardeveloper.resources.exceptions.BusinessException;
+import br.com.richardeveloper.services.BookImportService;
 import br.com.richardeveloper.services.BookService;
+import br.com.richardeveloper.services.IdempotencyStore;
 
 @ActiveProfiles("test")
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import(IdempotencyStore.class)
 public class BookControllerTest {
 
 	static String BOOK_API = "/api/books";
@@ -50,6 +69,9 @@ public class BookControllerTest {
 	@MockBean
 	BookService service;
 	
+	@MockBean
+	BookImportService importService;
+	
 	@Test
 	@DisplayName("Deve criar um livro com sucesso")
 	public void createBookTest() throws Exception {
@@ -76,6 +98,48 @@ public class BookControllerTest {
 			
 	}
 	
+	@Test
+	@DisplayName("Deve repetir a resposta original quando a Idempotency-Key for reenviada")
+	public void createBookIdempotentTest() throws Exception {
+		
+		BookDTO dto = BookDTO.builder().author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+		Book savedBook = Book.builder().id(1L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+		
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(savedBook);
+		
+		String json = new ObjectMapper().writeValueAsString(dto);
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+					.post(BOOK_API)
+					.header(IdempotencyStore.HEADER, "create-book-1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.accept(MediaType.APPLICATION_JSON)
+					.content(json);
+		
+		mvc.perform(request)
+			.andExpect(MockMvcResultMatchers.status().isCreated())
+			.andExpect(MockMvcResultMatchers.header().doesNotExist(IdempotencyStore.REPLAYED_HEADER))
+			.andExpect(MockMvcResultMatchers.jsonPath("id").value(1));
+		
+		mvc.perform(request)
+			.andExpect(MockMvcResultMatchers.status().isCreated())
+			.andExpect(MockMvcResultMatchers.header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+			.andExpect(MockMvcResultMatchers.jsonPath("id").value(1))
+			.andExpect(MockMvcResultMatchers.jsonPath("isbn", is(dto.getIsbn())));
+		
+		Mockito.verify(service, Mockito.times(1)).save(Mockito.any(Book.class));
+		
+		dto.setTitle("Outro título");
+		
+		mvc.perform(MockMvcRequestBuilders
+					.post(BOOK_API)
+					.header(IdempotencyStore.HEADER, "create-book-1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(new ObjectMapper().writeValueAsString(dto)))
+			.andExpect(MockMvcResultMatchers.status().isConflict())
+			.andExpect(jsonPath("errors[0]").value("Idempotency-Key já utilizada com outra requisição."));
+	}
+	
 	@Test
 	@DisplayName("Deve lançar exceção quando não houver dados suficientes para criar livro")
 	public void createInvalidBookTest() throws Exception {
@@ -114,6 +178,43 @@ public class BookControllerTest {
 			.andExpect(jsonPath("errors[0]").value(errorMsg));
 	}
 	
+	@Test
+	@DisplayName("Deve importar um lote de livros em NDJSON")
+	public void importBooksTest() throws Exception {
+		
+		ObjectMapper objectMapper = new ObjectMapper();
+		BookDTO first = BookDTO.builder().author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+		BookDTO second = BookDTO.builder().author("Washington").title("Title").isbn("753914268").build();
+		String ndjson = objectMapper.writeValueAsString(first) + "\n" + objectMapper.writeValueAsString(second) + "\n";
+		
+		List<BookDTO> received = new ArrayList<BookDTO>();
+		BDDMockito.given(importService.importBooks(Mockito.any())).willAnswer(invocation -> {
+			Iterator<BookDTO> books = invocation.getArgument(0);
+			BookImportReport report = new BookImportReport();
+			int index = 0;
+			while(books.hasNext()) {
+				BookDTO dto = books.next();
+				received.add(dto);
+				report.add(BookImportResult.builder().index(index).id((long) ++index).isbn(dto.getIsbn()).status(Status.CREATED).build());
+			}
+			return report;
+		});
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/batch"))
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(ndjson);
+		
+		mvc.perform(request)
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("created").value(2))
+			.andExpect(jsonPath("items", Matchers.hasSize(2)))
+			.andExpect(jsonPath("items[1].isbn").value(second.getIsbn()));
+		
+		Assertions.assertThat(received).containsExactly(first, second);
+	}
+	
 	@Test
 	@DisplayName("Deve buscar informações de um livro")
 	public void getBookTest() throws Exception {
@@ -135,6 +236,101 @@ public class BookControllerTest {
 			.andExpect(MockMvcResultMatchers.jsonPath("isbn", is(book.getIsbn())));
 	}
 	
+	@Test
+	@DisplayName("Deve retornar 304 sem carregar o livro quando o ETag coincidir")
+	public void getBookNotModifiedTest() throws Exception {
+		
+		Long id = 1L;
+		Book book = Book.builder().id(id).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").version(3L).build();
+		
+		BDDMockito.given(service.findById(id)).willReturn(Optional.of(book));
+		BDDMockito.given(service.findVersionById(id)).willReturn(Optional.of(3L));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + id)).accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + id)).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+			.andExpect(MockMvcResultMatchers.status().isNotModified())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+			.andExpect(MockMvcResultMatchers.content().string(""));
+		
+		Mockito.verify(service, Mockito.times(1)).findById(id);
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + id)).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("id", is(1)));
+	}
+	
+	@Test
+	@DisplayName("Deve buscar vários livros por id na ordem informada")
+	public void findBooksByIdsTest() throws Exception {
+		
+		Map<Long, Book> found = new LinkedHashMap<Long, Book>();
+		found.put(1L, Book.builder().id(1L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build());
+		found.put(3L, Book.builder().id(3L).author("Washington").title("Title").isbn("987654321").build());
+		
+		BDDMockito.given(service.findAllById(Set.of(3L, 2L, 1L))).willReturn(found);
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?ids=3,2,1").accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("$", Matchers.hasSize(3)))
+			.andExpect(jsonPath("[0].id").value(3))
+			.andExpect(jsonPath("[0].found").value(true))
+			.andExpect(jsonPath("[0].book.title").value("Title"))
+			.andExpect(jsonPath("[1].id").value(2))
+			.andExpect(jsonPath("[1].found").value(false))
+			.andExpect(jsonPath("[1].book").doesNotExist())
+			.andExpect(jsonPath("[2].book.isbn").value("123456789"));
+		
+		Mockito.verify(service, Mockito.never()).findById(Mockito.anyLong());
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros por isbn em uma única requisição")
+	public void lookupBooksByIsbnTest() throws Exception {
+		
+		Book book = Book.builder().id(1L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+		BDDMockito.given(service.findAllByIsbn(Mockito.anyCollection())).willReturn(Map.of("123456789", book));
+		
+		String json = new ObjectMapper().writeValueAsString(BookLookupRequest.builder().isbns(List.of("000", "123456789")).build());
+		
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/lookup").contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("[0].isbn").value("000"))
+			.andExpect(jsonPath("[0].found").value(false))
+			.andExpect(jsonPath("[1].isbn").value("123456789"))
+			.andExpect(jsonPath("[1].book.id").value(1));
+		
+		Mockito.verify(service, Mockito.never()).findAllById(Mockito.anyCollection());
+	}
+	
+	@Test
+	@DisplayName("Deve excluir e atualizar livros em lote retornando as quantidades afetadas")
+	public void bulkDeleteAndUpdateTest() throws Exception {
+		
+		BDDMockito.given(service.deleteAllById(List.of(1L, 2L, 3L))).willReturn(2);
+		BDDMockito.given(service.updateAuthor(List.of(1L, 2L), "Washington")).willReturn(2);
+		
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/bulk-delete").contentType(MediaType.APPLICATION_JSON)
+					.content(new ObjectMapper().writeValueAsString(BookBulkRequest.builder().ids(List.of(1L, 2L, 3L)).build())))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("requested").value(3))
+			.andExpect(jsonPath("affected").value(2));
+		
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API).contentType(MediaType.APPLICATION_JSON)
+					.content(new ObjectMapper().writeValueAsString(BookBulkRequest.builder().ids(List.of(1L, 2L)).author("Washington").build())))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("affected").value(2));
+		
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API + "/bulk-delete").contentType(MediaType.APPLICATION_JSON)
+					.content(new ObjectMapper().writeValueAsString(new BookBulkRequest())))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		Mockito.verify(service, Mockito.never()).findById(Mockito.anyLong());
+	}
+	
 	@Test
 	@DisplayName("Deve lançar execeção quando livro não existir")
 	public void bookNotFoundTest() throws Exception {
@@ -205,6 +401,46 @@ public class BookControllerTest {
 			.andExpect(MockMvcResultMatchers.jsonPath("author", is(book.getAuthor())))
 			.andExpect(MockMvcResultMatchers.jsonPath("isbn", is(book.getIsbn())));
 		
+		Mockito.verify(service).update(Mockito.argThat(b -> b.getTitle().equals("Aventuras de Jhonson")
+				&& b.getAuthor().equals("James Jhonson")));
+	}
+	
+	@Test
+	@DisplayName("Deve atualizar parcialmente um livro condicionado à versão do If-Match")
+	public void patchBookTest() throws Exception {
+		
+		BookDTO changes = BookDTO.builder().title("Novo Título").build();
+		String json = new ObjectMapper().writeValueAsString(changes);
+		BDDMockito.given(service.patch(Mockito.eq(1L), Mockito.eq(3L), Mockito.any(Book.class))).willReturn(Optional.of(4L));
+		BDDMockito.given(service.patch(Mockito.eq(2L), Mockito.eq(3L), Mockito.any(Book.class))).willReturn(Optional.empty());
+		BDDMockito.given(service.patch(Mockito.eq(1L), Mockito.eq(2L), Mockito.any(Book.class)))
+			.willThrow(new OptimisticLockingFailureException("stale"));
+		
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1")).header(HttpHeaders.IF_MATCH, "\"3\"")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(MockMvcResultMatchers.status().isNoContent())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"4\""));
+		
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1")).header(HttpHeaders.IF_MATCH, "\"2\"")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(MockMvcResultMatchers.status().isConflict());
+		
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/2")).header(HttpHeaders.IF_MATCH, "\"3\"")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(MockMvcResultMatchers.status().isNotFound());
+		
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1")).header(HttpHeaders.IF_MATCH, "W/\"3\"")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(MockMvcResultMatchers.status().isPreconditionRequired());
+		
+		Mockito.verify(service).patch(Mockito.eq(1L), Mockito.eq(3L), Mockito.argThat(b -> "Novo Título".equals(b.getTitle())
+				&& b.getAuthor() == null && b.getIsbn() == null));
+		Mockito.verify(service, Mockito.never()).findById(Mockito.anyLong());
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
 	}
 	
 	@Test
@@ -252,4 +488,126 @@ public class BookControllerTest {
 			.andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
 	}
 	
+	@Test
+	@DisplayName("Deve filtrar livros retornando apenas os campos solicitados")
+	public void findBookFieldsTest() throws Exception {
+		
+		Map<String, Object> row = new LinkedHashMap<String, Object>();
+		row.put("id", 1L);
+		row.put("title", "Aventuras de Jhonson");
+		
+		BDDMockito.given(service.findByAuthorAndTitle(Mockito.any(Book.class), Mockito.eq(Set.of("id", "title")), Mockito.any(Pageable.class)))
+			.willReturn(new PageImpl<Map<String, Object>>(List.of(row), PageRequest.of(0 , 10), 1));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?author=James&fields=id,title&page=0&size=10"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("content[0].id").value(1))
+			.andExpect(MockMvcResultMatchers.jsonPath("content[0].title").value("Aventuras de Jhonson"))
+			.andExpect(MockMvcResultMatchers.jsonPath("content[0].author").doesNotExist())
+			.andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1));
+		
+		Mockito.verify(service, Mockito.never()).findByAuthorAndTitle(Mockito.any(Book.class), Mockito.any(Pageable.class));
+	}
+	
+	@Test
+	@DisplayName("Deve retornar 304 na busca quando a página não mudou")
+	public void findBooksNotModifiedTest() throws Exception {
+		
+		List<Book> books = new ArrayList<Book>();
+		books.add(Book.builder().id(1L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").version(0L).build());
+		
+		BDDMockito.given(service.findByAuthorAndTitle(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+			.willReturn(new PageImpl<Book>(books, PageRequest.of(0 , 10), 1));
+		
+		String etag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?author=James&page=0&size=10"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?author=James&page=0&size=10").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(MockMvcResultMatchers.status().isNotModified());
+		
+		books.set(0, books.get(0).toBuilder().version(1L).build());
+		BDDMockito.given(service.findByAuthorAndTitle(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+			.willReturn(new PageImpl<Book>(books, PageRequest.of(0 , 10), 1));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?author=James&page=0&size=10").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, Matchers.not(etag)));
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros por cursor sem contar o total")
+	public void findBooksByCursorTest() throws Exception {
+		
+		List<Book> books = new ArrayList<Book>();
+		books.add(Book.builder().id(3L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build());
+		books.add(Book.builder().id(7L).author("James Jhonson").title("Aventuras de Jhonson 2").isbn("987654321").build());
+		
+		BDDMockito.given(service.findByAuthorAndTitle(Mockito.any(Book.class), Mockito.isNull(), Mockito.eq(2)))
+			.willReturn(new SliceImpl<Book>(books, PageRequest.of(0, 2), true));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API + "?author=James&cursor=&size=2")
+				.accept(MediaType.APPLICATION_JSON);
+		
+		String nextCursor = new ObjectMapper().readTree(mvc.perform(request)
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(2)))
+			.andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(true))
+			.andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist())
+			.andReturn().getResponse().getContentAsString()).get("nextCursor").asText();
+		
+		BDDMockito.given(service.findByAuthorAndTitle(Mockito.any(Book.class), Mockito.eq(7L), Mockito.eq(2)))
+			.willReturn(new SliceImpl<Book>(new ArrayList<Book>(), PageRequest.of(0, 2), false));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?author=James&size=2&cursor=" + nextCursor).accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(0)))
+			.andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(false));
+	}
+	
+	@Test
+	@DisplayName("Deve lançar exceção quando o cursor for inválido")
+	public void findBooksByInvalidCursorTest() throws Exception {
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?cursor=invalido").accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest())
+			.andExpect(jsonPath("errors[0]").value("Cursor inválido."));
+	}
+	
+	@Test
+	@DisplayName("Deve exportar o catálogo em NDJSON e CSV")
+	public void exportBooksTest() throws Exception {
+		
+		Book book = Book.builder().id(1L).author("James Jhonson").title("Aventuras de Jhonson").isbn("123456789").build();
+		Book other = Book.builder().id(2L).author("Washington").title("Title, \"Second\"").isbn("753914268").build();
+		BDDMockito.willAnswer(invocation -> {
+			Consumer<Book> consumer = invocation.getArgument(0);
+			consumer.accept(book);
+			consumer.accept(other);
+			return null;
+		}).given(service).exportAll(Mockito.any());
+		
+		MvcResult ndjson = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export")))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(ndjson))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+			.andExpect(MockMvcResultMatchers.content().string(
+					"{\"id\":1,\"title\":\"Aventuras de Jhonson\",\"author\":\"James Jhonson\",\"isbn\":\"123456789\"}\n"
+					+ "{\"id\":2,\"title\":\"Title, \\\"Second\\\"\",\"author\":\"Washington\",\"isbn\":\"753914268\"}\n"));
+		
+		MvcResult csv = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=csv")))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(csv))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(
+					"id,title,author,isbn\n"
+					+ "1,Aventuras de Jhonson,James Jhonson,123456789\n"
+					+ "2,\"Title, \"\"Second\"\"\",Washington,753914268\n"));
+	}
+	
 }
@@ -0,0 +1,53 @@
+package br.com.richardeveloper.controllers;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.services.BookService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookSearchContractTest {
+
+	static String BOOK_API = "/api/books";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private BookService service;
+
+	@Test
+	@DisplayName("Deve buscar por título e autor pelo início das palavras, sem casar no meio delas")
+	public void wordPrefixSearchTest() throws Exception {
+		
+		Book book = service.save(Book.builder().title("Aventuras Contratuais").author("Joaquim Manuel").isbn("SC-1").build());
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?title=contrat&author=manu").accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("content[0].id").value(book.getId()))
+			.andExpect(jsonPath("totalElements").value(1));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?title=ontratuais").accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("totalElements").value(0));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API + "?title=ontratuais&sort=id").accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(jsonPath("content[0].id").value(book.getId()))
+			.andExpect(jsonPath("totalElements").value(1));
+	}
+
+}
@@ -1,6 +1,8 @@
 package br.com.richardeveloper.controllers;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -25,13 +30,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import br.com.richardeveloper.models.Book;
 import br.com.richardeveloper.models.Loan;
 import br.com.richardeveloper.models.dto.LoanDTO;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
 import br.com.richardeveloper.services.BookService;
+import br.com.richardeveloper.services.IdempotencyStore;
 import br.com.richardeveloper.services.LoanService;
 
 @ActiveProfiles("test")
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
+@Import(IdempotencyStore.class)
 public class LoanControllerTest {
 
 	private static final String LOAN_API = "/api/loans";
@@ -67,4 +75,152 @@ public class LoanControllerTest {
 				.andExpect(MockMvcResultMatchers.status().isCreated())
 				.andExpect(MockMvcResultMatchers.jsonPath("id").value(1L));
 	}
+	
+	@Test
+	@DisplayName("Deve realizar o emprestimo uma única vez para a mesma Idempotency-Key")
+	public void createLoanIdempotentTest() throws Exception {
+		
+		LoanDTO dto = LoanDTO.builder().isbn("159736482").customer("Stive").build();
+		String json = new ObjectMapper().writeValueAsString(dto);
+		
+		Book book = Book.builder().id(1L).isbn("159736482").build();
+		BDDMockito.given(bookService.findByIsbn(dto.getIsbn())).willReturn(Optional.of(book));
+		
+		Loan loan = Loan.builder().id(1L).customer("Stive").book(book).loanDate(LocalDate.now()).build();
+		BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(loan);
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+				.header(IdempotencyStore.HEADER, "loan-1")
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(request)
+				.andExpect(MockMvcResultMatchers.status().isCreated());
+		mvc.perform(request)
+				.andExpect(MockMvcResultMatchers.status().isCreated())
+				.andExpect(MockMvcResultMatchers.header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+				.andExpect(MockMvcResultMatchers.jsonPath("id").value(1L))
+				.andExpect(MockMvcResultMatchers.jsonPath("loanDate").value(LocalDate.now().toString()));
+		
+		Mockito.verify(loanService, Mockito.times(1)).save(Mockito.any(Loan.class));
+		Mockito.verify(bookService, Mockito.times(1)).findByIsbn(dto.getIsbn());
+	}
+	
+	@Test
+	@DisplayName("Deve retornar erro ao tentar emprestar um livro inexistente")
+	public void invalidIsbnCreateLoanTest() throws Exception {
+		
+		LoanDTO dto = LoanDTO.builder().isbn("159736482").customer("Stive").build();
+		String json = new ObjectMapper().writeValueAsString(dto);
+		
+		BDDMockito.given(bookService.findByIsbn(dto.getIsbn())).willReturn(Optional.empty());
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(request)
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		
+		Mockito.verify(loanService, Mockito.never()).save(Mockito.any(Loan.class));
+	}
+	
+	@Test
+	@DisplayName("Deve retornar erro ao tentar emprestar um livro já emprestado")
+	public void loanedBookErrorOnCreateLoanTest() throws Exception {
+		
+		LoanDTO dto = LoanDTO.builder().isbn("159736482").customer("Stive").build();
+		String json = new ObjectMapper().writeValueAsString(dto);
+		
+		Book book = Book.builder().id(1L).isbn("159736482").build();
+		BDDMockito.given(bookService.findByIsbn(dto.getIsbn())).willReturn(Optional.of(book));
+		BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willThrow(new BusinessException("Book already loaned"));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(request)
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Book already loaned"));
+	}
+	
+	@Test
+	@DisplayName("Deve listar empréstimos atrasados com cursor")
+	public void findLateLoansTest() throws Exception {
+		
+		Book book = Book.builder().id(1L).isbn("159736482").build();
+		Loan first = Loan.builder().id(1L).customer("Stive").book(book).loanDate(LocalDate.of(2020, 1, 10)).returned(false).build();
+		Loan second = Loan.builder().id(2L).customer("Stive").book(book).loanDate(LocalDate.of(2020, 1, 12)).returned(false).build();
+		BDDMockito.given(loanService.findLate(LocalDate.now().minusDays(7), null, 2))
+				.willReturn(new SliceImpl<Loan>(Arrays.asList(first, second), PageRequest.of(0, 2), true));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(LOAN_API + "/late?days=7&size=2")
+				.accept(MediaType.APPLICATION_JSON);
+		
+		String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString("2020-01-12:2".getBytes());
+		mvc.perform(request)
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("content[0].id").value(1L))
+				.andExpect(MockMvcResultMatchers.jsonPath("content[1].loanDate").value("2020-01-12"))
+				.andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("nextCursor").value(cursor));
+	}
+	
+	@Test
+	@DisplayName("Deve retornar erro ao listar empréstimos atrasados com cursor inválido")
+	public void findLateLoansInvalidCursorTest() throws Exception {
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(LOAN_API + "/late?cursor=invalid")
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(request)
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Cursor inválido."));
+	}
+	@Test
+	@DisplayName("Deve devolver um empréstimo")
+	public void returnLoanTest() throws Exception {
+		
+		BDDMockito.given(loanService.returnLoan(1L)).willReturn(true);
+		BDDMockito.given(loanService.returnLoan(2L)).willReturn(false);
+		BDDMockito.given(loanService.returnLoan(3L)).willThrow(new BusinessException("Loan already returned"));
+		
+		mvc.perform(MockMvcRequestBuilders.post(LOAN_API + "/1/return"))
+				.andExpect(MockMvcResultMatchers.status().isNoContent());
+		
+		mvc.perform(MockMvcRequestBuilders.post(LOAN_API + "/2/return"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		
+		mvc.perform(MockMvcRequestBuilders.post(LOAN_API + "/3/return"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Loan already returned"));
+	}
+	
+	@Test
+	@DisplayName("Deve listar o histórico de empréstimos de um livro")
+	public void findHistoryTest() throws Exception {
+		
+		Book book = Book.builder().id(1L).isbn("159736482").build();
+		Loan first = Loan.builder().id(2L).customer("Stive").book(book).loanDate(LocalDate.of(2020, 1, 2)).returned(false).build();
+		Loan second = Loan.builder().id(1L).customer("Ana").book(book).loanDate(LocalDate.of(2020, 1, 1)).returned(true).build();
+		BDDMockito.given(bookService.findByIsbn("159736482")).willReturn(Optional.of(book));
+		BDDMockito.given(loanService.findHistory(null, 1L, null, 2))
+				.willReturn(new SliceImpl<Loan>(Arrays.asList(first, second), PageRequest.of(0, 2), true));
+		
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API + "/history?isbn=159736482&size=2"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("content[0].id").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("content[1].returned").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("nextCursor").value(
+						Base64.getUrlEncoder().withoutPadding().encodeToString("2020-01-01:1".getBytes())));
+		
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API + "/history?isbn=159736482&customer=Ana"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+	
 }
@@ -0,0 +1,60 @@
+package br.com.richardeveloper.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("prod")
+class ProductionProfileTest {
+
+	@Autowired
+	private HikariDataSource dataSource;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private Environment environment;
+
+	@Test
+	@DisplayName("Deve dimensionar o pool pelo número de núcleos")
+	public void poolSizedFromCoresTest() {
+		
+		int expected = Runtime.getRuntime().availableProcessors() * 2 + 1;
+		
+		assertThat(dataSource.getMaximumPoolSize()).isEqualTo(expected);
+		assertThat(dataSource.getMinimumIdle()).isEqualTo(expected);
+		assertThat(dataSource.getPoolName()).isEqualTo("primary");
+		assertThat(dataSource.getJdbcUrl()).contains("QUERY_CACHE_SIZE=64");
+	}
+
+	@Test
+	@DisplayName("Deve habilitar lotes ordenados e desabilitar open-in-view")
+	public void hibernateTunedTest() {
+		
+		SessionFactoryOptions options = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getSessionFactoryOptions();
+		
+		assertThat(options.getJdbcBatchSize()).isEqualTo(50);
+		assertThat(options.getJdbcFetchSize()).isEqualTo(500);
+		assertThat(options.isOrderInsertsEnabled()).isTrue();
+		assertThat(options.isOrderUpdatesEnabled()).isTrue();
+		assertThat(options.isJdbcBatchVersionedData()).isTrue();
+		assertThat(options.inClauseParameterPaddingEnabled()).isTrue();
+		assertThat(entityManagerFactory.getProperties()).containsEntry("hibernate.query.plan_cache_max_size", "2048");
+		assertThat(environment.getProperty("spring.jpa.open-in-view", Boolean.class)).isFalse();
+	}
+
+}
@@ -0,0 +1,92 @@
+package br.com.richardeveloper.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.services.BookService;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = {
+		"library.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+		"library.datasource.replica.username=sa",
+		"library.datasource.replica.maximum-pool-size=2"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+	@Autowired
+	private BookService service;
+
+	@Autowired
+	private BookRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ReadReplicaDataSource dataSource;
+
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	public void setUp() {
+		replica = new JdbcTemplate(dataSource.getReplica());
+		replica.execute("create table if not exists book (id bigint not null, author varchar(255), isbn varchar(255),"
+				+ " title varchar(255), version bigint, primary key (id))");
+		replica.update("delete from book");
+	}
+
+	@Test
+	@DisplayName("Deve ler da réplica em transações somente leitura e do primário nas demais")
+	public void routeReadOnlyTransactionsToReplicaTest() {
+		
+		Book book = service.save(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("1029384756").build());
+		
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+		
+		Optional<Book> fromReplica = readOnly.execute(status -> repository.findByIsbn("1029384756"));
+		Optional<Book> fromPrimary = readWrite.execute(status -> repository.findByIsbn("1029384756"));
+		
+		assertThat(fromReplica).isEmpty();
+		assertThat(fromPrimary).isPresent();
+		assertThat(service.findVersionById(book.getId())).isEmpty();
+		
+		replica.update("insert into book (id, author, isbn, title, version) values (?, ?, ?, ?, ?)",
+				book.getId(), book.getAuthor(), book.getIsbn(), book.getTitle(), 0L);
+		
+		assertThat(service.findVersionById(book.getId())).isEqualTo(Optional.of(0L));
+	}
+
+	@Test
+	@DisplayName("Não deve guardar no cache o livro lido da réplica logo após uma escrita")
+	public void skipCachingStaleReplicaReadsTest() {
+		
+		Book book = service.save(Book.builder().author("James Jhonson").title("O Retorno de James Jhonson").isbn("5647382910").build());
+		replica.update("insert into book (id, author, isbn, title, version) values (?, ?, ?, ?, ?)",
+				book.getId(), book.getAuthor(), book.getIsbn(), book.getTitle(), book.getVersion());
+		
+		service.update(book.toBuilder().title("O Fim de James Jhonson").build());
+		
+		assertThat(service.findById(book.getId()).get().getTitle()).isEqualTo("O Retorno de James Jhonson");
+		
+		replica.update("update book set title = ?, version = version + 1 where id = ?", "O Fim de James Jhonson", book.getId());
+		
+		assertThat(service.findById(book.getId()).get().getTitle()).isEqualTo("O Fim de James Jhonson");
+	}
+
+}
@@ -0,0 +1,67 @@
+package br.com.richardeveloper.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.services.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "library.bulkhead.enabled=true")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+class LibraryMetricsTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private BookService service;
+
+	@Test
+	@DisplayName("Deve registrar tempos de endpoints, serviços, repositórios e mapeamento")
+	public void methodTimersTest() throws Exception {
+		
+		Book book = service.save(Book.builder().title("Metrics").author("Author").isbn("MT-1").build());
+		
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId()).accept(MediaType.APPLICATION_JSON))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		assertThat(registry.find(LibraryMetrics.SERVICE).tags("type", "bookServiceImpl", "method", "findById").timer().count()).isEqualTo(1);
+		assertThat(registry.find(LibraryMetrics.REPOSITORY).tags("type", "bookRepository", "method", "saveAndFlush").timer().count()).isEqualTo(1);
+		assertThat(registry.find(LibraryMetrics.MAPPING).tags("type", "bookMapper", "method", "toDto").timer().count()).isEqualTo(1);
+		assertThat(registry.find("http.server.requests").tags("uri", "/api/books/{id}").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve expor métricas no formato Prometheus")
+	public void prometheusScrapeTest() throws Exception {
+		
+		String scrape = mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		
+		assertThat(scrape)
+				.contains("cache_gets_total{cache=\"books\"")
+				.contains("hikaricp_connections_active")
+				.contains("hibernate_sessions_open_total")
+				.contains("library_repository_seconds")
+				.contains("library_bulkhead_queued{bulkhead=\"searches\"");
+	}
+
+}
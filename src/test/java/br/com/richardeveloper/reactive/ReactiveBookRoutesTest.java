@@ -0,0 +1,159 @@
+package br.com.richardeveloper.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.services.BookService;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = {
+		"library.reactive.enabled=true",
+		"library.reactive.port=0"
+})
+@ActiveProfiles("test")
+class ReactiveBookRoutesTest {
+
+	@Autowired
+	private ReactiveBookServer server;
+
+	@Autowired
+	private BookService service;
+
+	private WebTestClient client;
+
+	@BeforeEach
+	public void setUp() {
+		client = WebTestClient.bindToServer().baseUrl("http://localhost:" + server.getPort()).build();
+	}
+
+	@Test
+	@DisplayName("Deve obter um livro pelo id na API reativa")
+	public void findByIdTest() {
+		
+		Book book = service.save(Book.builder().title("Reativo").author("Fulano").isbn("RX-1").build());
+		
+		client.get().uri("/api/books/{id}", book.getId()).accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("id").isEqualTo(book.getId().intValue())
+				.jsonPath("title").isEqualTo("Reativo")
+				.jsonPath("author").isEqualTo("Fulano")
+				.jsonPath("isbn").isEqualTo("RX-1");
+	}
+
+	@Test
+	@DisplayName("Deve recusar informar a porta do servidor reativo parado")
+	public void portOfStoppedServerTest() {
+		
+		Throwable exception = catchThrowable(() -> new ReactiveBookServer(null, 0, 1).getPort());
+		
+		assertThat(exception).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	@DisplayName("Deve retornar 404 para livro inexistente na API reativa")
+	public void bookNotFoundTest() {
+		
+		client.get().uri("/api/books/{id}", Long.MAX_VALUE)
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	@DisplayName("Deve filtrar livros por autor e isbn na API reativa")
+	public void findByAuthorAndTitleTest() {
+		
+		service.save(Book.builder().title("Memórias Reativas").author("Beltrano Reativo").isbn("RX-2").build());
+		service.save(Book.builder().title("Outro").author("Ciclano").isbn("RX-3").build());
+		
+		client.get().uri("/api/books?author=reativo&page=0&size=10")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content.length()").isEqualTo(1)
+				.jsonPath("content[0].isbn").isEqualTo("RX-2")
+				.jsonPath("totalElements").isEqualTo(1)
+				.jsonPath("pageable.pageSize").isEqualTo(10);
+		
+		client.get().uri("/api/books?isbn=rx-3")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].title").isEqualTo("Outro")
+				.jsonPath("totalElements").isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve ordenar e filtrar por id como a API servlet na API reativa")
+	public void sortAndIdFilterTest() {
+		
+		Book first = service.save(Book.builder().title("Alfa Ordenado").author("Ordenador Rx").isbn("RX-7").build());
+		Book second = service.save(Book.builder().title("Beta Ordenado").author("Ordenador Rx").isbn("RX-8").build());
+		
+		client.get().uri("/api/books?author=ordenador&sort=title,desc")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].id").isEqualTo(second.getId().intValue())
+				.jsonPath("content[1].id").isEqualTo(first.getId().intValue())
+				.jsonPath("totalElements").isEqualTo(2);
+		
+		client.get().uri("/api/books?author=ordenador&id={id}", first.getId())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].id").isEqualTo(first.getId().intValue())
+				.jsonPath("totalElements").isEqualTo(1);
+		
+		client.get().uri("/api/books?sort=version")
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	@DisplayName("Deve retornar 400 para página além do limite da busca por texto na API reativa")
+	public void searchBeyondResultWindowTest() {
+		
+		client.get().uri("/api/books?title=reativo&page=1000&size=20")
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("A busca por texto alcança no máximo 10000 resultados.");
+	}
+
+	@Test
+	@DisplayName("Deve tratar curingas do filtro como texto na API reativa")
+	public void findByLiteralWildcardsTest() {
+		
+		service.save(Book.builder().title("Cem Por Cento").author("Fulano").isbn("RX-50%").build());
+		service.save(Book.builder().title("Quinhentos").author("Fulano").isbn("RX-500").build());
+		service.save(Book.builder().title("Sublinhado").author("Fulano").isbn("RX_6").build());
+		service.save(Book.builder().title("Letra").author("Fulano").isbn("RXA6").build());
+		
+		client.get().uri("/api/books?isbn={isbn}", "0%")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].isbn").isEqualTo("RX-50%")
+				.jsonPath("totalElements").isEqualTo(1);
+		
+		client.get().uri("/api/books?isbn={isbn}", "x_6")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content[0].isbn").isEqualTo("RX_6")
+				.jsonPath("totalElements").isEqualTo(1);
+	}
+
+}
@@ -1,8 +1,16 @@
 package br.com.richardeveloper.repositories;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +18,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -27,29 +40,44 @@ class BookRepositoryTest {
 	private BookRepository repository;
 	
 	@Test
-	@DisplayName("Deve retornar verdadeiro quando existir livro com isbn já existente")
-	void returnTrueWhenIsbnExists() {
+	@DisplayName("Deve violar a restrição única ao salvar livro com isbn já existente")
+	void violateUniqueIsbn() {
 		
 		String isbn = "1029384756";
-		Book book = Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn(isbn).build();
-		entityManager.persist(book);
+		entityManager.persist(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn(isbn).build());
+		
+		Throwable exception = catchThrowable(() -> repository.saveAndFlush(Book.builder().author("Washington").title("Title").isbn(isbn).build()));
+		
+		assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+		assertThat(((DataIntegrityViolationException) exception).getMostSpecificCause().getMessage()).containsIgnoringCase("UK_BOOK_ISBN");
+	}
+	
+	@Test
+	@DisplayName("Deve violar a restrição única ao salvar livro com título já existente")
+	void violateUniqueTitle() {
 		
-		boolean existsByIsbn = repository.existsByIsbn(isbn);
+		String title = "As Aventuras de James Jhonson";
+		entityManager.persist(Book.builder().author("James Jhonson").title(title).isbn("1029384756").build());
 		
-		assertThat(existsByIsbn).isTrue();
+		Throwable exception = catchThrowable(() -> repository.saveAndFlush(Book.builder().author("Washington").title(title).isbn("5647382910").build()));
 		
+		assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+		assertThat(((DataIntegrityViolationException) exception).getMostSpecificCause().getMessage()).containsIgnoringCase("UK_BOOK_TITLE");
 	}
 	
 	@Test
-	@DisplayName("Deve retornar falso quando existir não livro com isbn já existente")
-	void returnFalsoWhenDoesntIsbnExists() {
+	@DisplayName("Deve retornar um livro pelo Isbn")
+	public void findByIsbnTest() {
 		
 		String isbn = "1029384756";
-
-		boolean existsByIsbn = repository.existsByIsbn(isbn);
+		Book book = Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn(isbn).build();
+		entityManager.persist(book);
 		
-		assertThat(existsByIsbn).isFalse();
+		Optional<Book> foundBook = repository.findByIsbn(isbn);
 		
+		assertThat(foundBook.isPresent()).isTrue();
+		assertThat(foundBook.get().getId()).isEqualTo(book.getId());
+		assertThat(repository.findByIsbn("5647382910").isPresent()).isFalse();
 	}
 	
 	@Test
@@ -94,6 +122,100 @@ class BookRepositoryTest {
 		
 		assertThat(deletedBook).isNull(); 
 	}
-
+	
+	@Test
+	@DisplayName("Deve buscar a próxima fatia de livros após o último id")
+	public void findAfterTest() {
+		
+		Book first = entityManager.persist(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("1029384756").build());
+		Book second = entityManager.persist(Book.builder().author("James Jhonson").title("O Retorno de James Jhonson").isbn("5647382910").build());
+		Book third = entityManager.persist(Book.builder().author("James Jhonson").title("O Fim de James Jhonson").isbn("1357924680").build());
+		entityManager.persist(Book.builder().author("Washington").title("Title").isbn("2468013579").build());
+		
+		Slice<Book> slice = repository.findAfter(first.getId(), null, null, "%james%", null, PageRequest.of(0, 1));
+		
+		assertThat(slice.getContent()).containsExactly(second);
+		assertThat(slice.hasNext()).isTrue();
+		
+		Slice<Book> last = repository.findAfter(second.getId(), null, null, "%james%", null, PageRequest.of(0, 1));
+		
+		assertThat(last.getContent()).containsExactly(third);
+		assertThat(last.hasNext()).isFalse();
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar a fatia por id e tratar curingas do filtro como texto")
+	public void findAfterLiteralWildcardsTest() {
+		
+		Book discount = entityManager.persist(Book.builder().author("James Jhonson").title("100% James").isbn("1029384756").build());
+		Book other = entityManager.persist(Book.builder().author("James Jhonson").title("1000 James").isbn("5647382910").build());
+		entityManager.persist(Book.builder().author("Jame_s").title("Title").isbn("1357924680").build());
+		
+		assertThat(repository.findAfter(0L, null, BookRepositoryCustom.containing("0%"), null, null, PageRequest.of(0, 10)).getContent())
+				.containsExactly(discount);
+		assertThat(repository.findAfter(0L, null, null, BookRepositoryCustom.containing("e_s"), null, PageRequest.of(0, 10)).getContent())
+				.hasSize(1);
+		assertThat(repository.findAfter(0L, other.getId(), BookRepositoryCustom.containing("james"), null, null, PageRequest.of(0, 10)).getContent())
+				.containsExactly(other);
+	}
+	
+	@Test
+	@DisplayName("Deve percorrer todos os livros em ordem de id")
+	public void streamAllTest() {
+		
+		Book first = entityManager.persist(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("1029384756").build());
+		Book second = entityManager.persist(Book.builder().author("Washington").title("Title").isbn("5647382910").build());
+		
+		try (Stream<Book> books = repository.streamAll()) {
+			List<Long> ids = books.map(Book::getId).collect(Collectors.toList());
+			
+			assertThat(ids).containsExactly(first.getId(), second.getId());
+		}
+	}
+	
+	@Test
+	@DisplayName("Deve projetar apenas os campos solicitados")
+	public void findFieldsTest() {
+		
+		Book first = entityManager.persist(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("1029384756").build());
+		Book second = entityManager.persist(Book.builder().author("James Jhonson").title("O Retorno de James Jhonson").isbn("5647382910").build());
+		entityManager.persist(Book.builder().author("Washington").title("Title").isbn("2468013579").build());
+		entityManager.flush();
+		entityManager.clear();
+		
+		Set<String> fields = new LinkedHashSet<String>(List.of("title", "id"));
+		Page<Map<String, Object>> page = repository.findFields(Book.builder().author("JAMES").build(), fields,
+				PageRequest.of(0, 1, Sort.by("title").descending()));
+		
+		assertThat(page.getTotalElements()).isEqualTo(2);
+		assertThat(page.getContent()).hasSize(1);
+		assertThat(page.getContent().get(0)).containsExactly(entry("title", "O Retorno de James Jhonson"), entry("id", second.getId()));
+		
+		List<Map<String, Object>> byId = repository.findFieldsByIdIn(List.of(second.getId(), first.getId()), Set.of("isbn"));
+		
+		assertThat(byId).containsExactly(Map.of("isbn", "5647382910"), Map.of("isbn", "1029384756"));
+		
+		assertThat(repository.findFields(Book.builder().author("%").build(), fields, PageRequest.of(0, 10)).getTotalElements()).isZero();
+		assertThat(repository.findFields(Book.builder().title("_itle").build(), fields, PageRequest.of(0, 10)).getTotalElements()).isZero();
+	}
+	
+	@Test
+	@DisplayName("Deve atualizar apenas os campos informados quando a versão coincidir")
+	public void updateFieldsTest() {
+		
+		Book book = entityManager.persistFlushFind(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("1029384756").build());
+		entityManager.clear();
+		
+		int stale = repository.updateFields(book.getId(), book.getVersion() + 1, Map.of("title", "Outro Título"));
+		int updated = repository.updateFields(book.getId(), book.getVersion(), Map.of("title", "Novo Título"));
+		entityManager.clear();
+		
+		Book found = entityManager.find(Book.class, book.getId());
+		assertThat(stale).isZero();
+		assertThat(updated).isEqualTo(1);
+		assertThat(found.getTitle()).isEqualTo("Novo Título");
+		assertThat(found.getAuthor()).isEqualTo("James Jhonson");
+		assertThat(found.getVersion()).isEqualTo(book.getVersion() + 1);
+	}
 	
 }
@@ -0,0 +1,73 @@
+package br.com.richardeveloper.repositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class LoanRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private LoanRepository repository;
+	
+	@Test
+	@DisplayName("Deve verificar se existe empréstimo não devolvido para o livro")
+	void existsByBookAndNotReturnedTest() {
+		
+		Book book = entityManager.persist(Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("1029384756").build());
+		Book returnedBook = entityManager.persist(Book.builder().author("Washington").title("Title").isbn("5647382910").build());
+		entityManager.persist(Loan.builder().book(book).customer("Stive").loanDate(LocalDate.now()).returned(false).build());
+		entityManager.persist(Loan.builder().book(returnedBook).customer("Stive").loanDate(LocalDate.now()).returned(true).build());
+		
+		assertThat(repository.existsByBookIdAndReturnedFalse(book.getId())).isTrue();
+		assertThat(repository.existsByBookIdAndReturnedFalse(returnedBook.getId())).isFalse();
+	}
+	
+	@Test
+	@DisplayName("Deve buscar empréstimos atrasados em lotes ordenados por data")
+	void findLateTest() {
+		
+		LocalDate today = LocalDate.now();
+		Book first = entityManager.persist(Book.builder().author("Author").title("First").isbn("111").build());
+		Book second = entityManager.persist(Book.builder().author("Author").title("Second").isbn("222").build());
+		Book third = entityManager.persist(Book.builder().author("Author").title("Third").isbn("333").build());
+		Book fourth = entityManager.persist(Book.builder().author("Author").title("Fourth").isbn("444").build());
+		Loan oldest = entityManager.persist(Loan.builder().book(first).customer("Stive").loanDate(today.minusDays(30)).returned(false).build());
+		Loan older = entityManager.persist(Loan.builder().book(second).customer("Stive").loanDate(today.minusDays(20)).returned(false).build());
+		entityManager.persist(Loan.builder().book(third).customer("Stive").loanDate(today.minusDays(25)).returned(true).build());
+		entityManager.persist(Loan.builder().book(fourth).customer("Stive").loanDate(today).returned(false).build());
+		entityManager.flush();
+		entityManager.clear();
+		
+		LocalDate dueBefore = today.minusDays(14);
+		Slice<Loan> page = repository.findLate(dueBefore, PageRequest.of(0, 1));
+		Slice<Loan> next = repository.findLateAfter(dueBefore, page.getContent().get(0).getLoanDate(), page.getContent().get(0).getId(), PageRequest.of(0, 1));
+		
+		assertThat(page.hasNext()).isTrue();
+		assertThat(page.getContent().get(0).getId()).isEqualTo(oldest.getId());
+		assertThat(page.getContent().get(0).getBook().getIsbn()).isEqualTo("111");
+		assertThat(next.hasNext()).isFalse();
+		assertThat(next.getContent().stream().map(Loan::getId).collect(Collectors.toList())).containsExactly(older.getId());
+	}
+	
+}
@@ -0,0 +1,174 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BookBulkOperationsTest {
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	@Autowired
+	private BookService service;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private BookSearchIndex searchIndex;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	@DisplayName("Deve reatribuir o autor de vários livros invalidando cache e índice")
+	public void updateAuthorTest() {
+		
+		List<Book> books = createBooks(600);
+		List<Long> ids = ids(books);
+		Book cached = service.findById(ids.get(0)).get();
+		ids.add(Long.MAX_VALUE);
+		
+		int updated = service.updateAuthor(ids, "Graciliano Bulk");
+		
+		assertThat(updated).isEqualTo(600);
+		Book reloaded = service.findById(cached.getId()).get();
+		assertThat(reloaded.getAuthor()).isEqualTo("Graciliano Bulk");
+		assertThat(reloaded.getVersion()).isEqualTo(cached.getVersion() + 1);
+		assertThat(searchIndex.search(null, "Graciliano Bulk", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(600);
+	}
+
+	@Test
+	@DisplayName("Deve excluir vários livros e desfazer tudo se algum possuir empréstimo")
+	public void deleteAllByIdTest() {
+		
+		List<Book> books = createBooks(3);
+		List<Long> ids = ids(books);
+		service.findById(ids.get(0));
+		loanRepository.save(Loan.builder().book(books.get(2)).customer("Customer").loanDate(LocalDate.now()).returned(false).build());
+		
+		Throwable exception = catchThrowable(() -> service.deleteAllById(ids));
+		
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Livro possui empréstimos.");
+		assertThat(bookRepository.findAllById(ids)).hasSize(3);
+		
+		int deleted = service.deleteAllById(ids.subList(0, 2));
+		
+		assertThat(deleted).isEqualTo(2);
+		assertThat(service.findById(ids.get(0))).isEmpty();
+		assertThat(bookRepository.findAllById(ids)).extracting(Book::getId).containsExactly(ids.get(2));
+		assertThat(searchIndex.search(books.get(0).getTitle(), null, PageRequest.of(0, 10)).getContent())
+				.doesNotContain(ids.get(0), ids.get(1));
+	}
+
+	@Test
+	@DisplayName("Deve atualizar parcialmente um livro e rejeitar a escrita com versão antiga")
+	public void patchTest() {
+		
+		Book book = createBooks(1).get(0);
+		Book cached = service.findById(book.getId()).get();
+		
+		Optional<Long> version = service.patch(book.getId(), cached.getVersion(), Book.builder().author("Raquel Patch").build());
+		Throwable stale = catchThrowable(() -> service.patch(book.getId(), cached.getVersion(), Book.builder().title("Perdida").build()));
+		
+		assertThat(version).contains(cached.getVersion() + 1);
+		assertThat(stale).isInstanceOf(OptimisticLockingFailureException.class);
+		Book reloaded = service.findById(book.getId()).get();
+		assertThat(reloaded.getAuthor()).isEqualTo("Raquel Patch");
+		assertThat(reloaded.getTitle()).isEqualTo(book.getTitle());
+		assertThat(reloaded.getIsbn()).isEqualTo(book.getIsbn());
+		assertThat(reloaded.getVersion()).isEqualTo(cached.getVersion() + 1);
+		assertThat(searchIndex.search(null, "Raquel Patch", PageRequest.of(0, 10)).getContent()).containsExactly(book.getId());
+		assertThat(service.patch(Long.MAX_VALUE, 0L, Book.builder().title("Nenhum").build())).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve descartar do cache o livro lido por outra thread antes do commit da alteração")
+	public void invalidateAfterCommitTest() throws Exception {
+		
+		Book book = createBooks(1).get(0);
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				service.update(book.toBuilder().title(book.getTitle() + " Revisto").build());
+				try {
+					reader.submit(() -> service.findById(book.getId())).get();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		} finally {
+			reader.shutdownNow();
+		}
+		
+		assertThat(service.findById(book.getId()).get().getTitle()).isEqualTo(book.getTitle() + " Revisto");
+	}
+
+	@Test
+	@DisplayName("Deve indexar os livros importados apenas após o commit")
+	public void saveAllIndexAfterCommitTest() {
+		
+		int n = SEQUENCE.incrementAndGet();
+		Book book = Book.builder().title("Importado " + n).author("Author").isbn("IM-" + n).build();
+		
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			service.saveAll(List.of(book));
+			status.setRollbackOnly();
+		});
+		
+		assertThat(bookRepository.findByIsbn(book.getIsbn())).isEmpty();
+		assertThat(searchIndex.search(book.getTitle(), null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+		
+		Long id = service.saveAll(List.of(book.toBuilder().id(null).version(null).build())).get(0).getId();
+		
+		assertThat(searchIndex.search(book.getTitle(), null, PageRequest.of(0, 10)).getContent()).containsExactly(id);
+	}
+
+	private List<Book> createBooks(int size) {
+		List<Book> books = new ArrayList<Book>(size);
+		for(int i = 0; i < size; i++) {
+			int n = SEQUENCE.incrementAndGet();
+			books.add(Book.builder().title("Bulk " + n).author("Author").isbn("BK-" + n).build());
+		}
+		List<Book> saved = bookRepository.saveAll(books);
+		searchIndex.index(saved);
+		return saved;
+	}
+
+	private List<Long> ids(List<Book> books) {
+		List<Long> ids = new ArrayList<Long>(books.size());
+		books.forEach(book -> ids.add(book.getId()));
+		return ids;
+	}
+
+}
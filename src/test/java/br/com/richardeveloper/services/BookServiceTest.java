@@ -3,10 +3,16 @@ package br.com.richardeveloper.services;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -22,6 +29,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.dto.BookImportResult;
+import br.com.richardeveloper.models.dto.BookImportResult.Status;
 import br.com.richardeveloper.repositories.BookRepository;
 import br.com.richardeveloper.resources.exceptions.BusinessException;
 
@@ -31,12 +40,23 @@ class BookServiceTest {
 
 	private BookService service;
 	
+	private BookSearchIndex searchIndex;
+	
 	@MockBean
 	private BookRepository repository;
 	
+	@MockBean
+	private EntityManager entityManager;
+	
 	@BeforeEach
 	public void setUp() {
-		this.service = new BookServiceImpl(repository);
+		this.searchIndex = new BookSearchIndex(repository);
+		this.service = new BookServiceImpl(repository, new BookCache(100, Duration.ofMinutes(10)), searchIndex, entityManager);
+	}
+	
+	@AfterEach
+	public void tearDown() throws Exception {
+		this.searchIndex.destroy();
 	}
 	
 	@Test
@@ -45,8 +65,7 @@ class BookServiceTest {
 
 		Book book = Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("78954321").build();
 		
-		Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
-		Mockito.when(repository.save(book))
+		Mockito.when(repository.saveAndFlush(book))
 			.thenReturn(Book.builder().id(1L).author("James Jhonson").title("As Aventuras de James Jhonson").isbn("78954321").build());
 		
 		Book savedBook = service.save(book);
@@ -64,12 +83,12 @@ class BookServiceTest {
 		
 		Book book = Book.builder().id(1L).author("James Jhonson").title("As Aventuras de James Jhonson").isbn("78954321").build();
 		
-		Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+		Mockito.when(repository.saveAndFlush(book)).thenThrow(uniqueViolation("UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)"));
 		
 		Throwable exception = catchThrowable(() -> service.save(book));
 		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn já cadastrado.");
 				
-		Mockito.verify(repository, Mockito.never()).save(book);
+		Mockito.verify(repository, Mockito.times(1)).saveAndFlush(book);
 		
 	}
 
@@ -80,12 +99,12 @@ class BookServiceTest {
 		
 		Book book = Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("85412369").build();
 		
-		Mockito.when(repository.existsByTitle(book.getTitle())).thenReturn(true);
+		Mockito.when(repository.saveAndFlush(book)).thenThrow(uniqueViolation("UK_BOOK_TITLE_INDEX_2 ON PUBLIC.BOOK(TITLE)"));
 		
 		Throwable catchThrowable = catchThrowable(() -> service.save(book));
 		assertThat(catchThrowable).isInstanceOf(BusinessException.class).hasMessage("Título já cadastrado.");
 		
-		Mockito.verify(repository, Mockito.never()).save(book);
+		Mockito.verify(repository, Mockito.times(1)).saveAndFlush(book);
 	}
 	
 	@Test
@@ -120,6 +139,60 @@ class BookServiceTest {
 		
 	}
 	
+	@Test
+	@DisplayName("Deve obter um livro por Id do cache após a primeira consulta")
+	public void getByIdFromCacheTest() {
+		
+		Long id = 1L;
+		Book book = Book.builder().id(id).author("James Jhonson").title("As Aventuras de James Jhonson").isbn("85412369").build();
+		
+		Mockito.when(repository.findById(id)).thenReturn(Optional.of(book));
+		
+		service.findById(id);
+		Optional<Book> foundBook = service.findById(id);
+		
+		assertThat(foundBook.isPresent()).isTrue();
+		assertThat(foundBook.get()).isEqualTo(book);
+		Mockito.verify(repository, Mockito.times(1)).findById(id);
+	}
+	
+	@Test
+	@DisplayName("Deve obter um livro por Isbn")
+	public void getByIsbnTest() {
+		
+		String isbn = "85412369";
+		Book book = Book.builder().id(1L).author("James Jhonson").title("As Aventuras de James Jhonson").isbn(isbn).build();
+		
+		Mockito.when(repository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+		
+		service.findByIsbn(isbn);
+		Optional<Book> foundBook = service.findByIsbn(isbn);
+		
+		assertThat(foundBook.isPresent()).isTrue();
+		assertThat(foundBook.get().getIsbn()).isEqualTo(isbn);
+		Mockito.verify(repository, Mockito.times(1)).findByIsbn(isbn);
+	}
+	
+	@Test
+	@DisplayName("Deve invalidar o cache ao atualizar um livro")
+	public void updateInvalidatesCacheTest() {
+		
+		Long id = 1L;
+		Book book = Book.builder().id(id).author("James Jhonson").title("As Aventuras de James Jhonson").isbn("85412369").build();
+		Book updatedBook = Book.builder().id(id).author("Washington").title("As Aventuras de James Jhonson").isbn("75391426").build();
+		
+		Mockito.when(repository.findById(id)).thenReturn(Optional.of(book), Optional.of(updatedBook));
+		Mockito.when(repository.findByIsbn("85412369")).thenReturn(Optional.empty());
+		Mockito.when(repository.save(updatedBook)).thenReturn(updatedBook);
+		
+		service.findById(id);
+		service.update(updatedBook);
+		
+		assertThat(service.findById(id).get().getAuthor()).isEqualTo("Washington");
+		assertThat(service.findByIsbn("85412369").isPresent()).isFalse();
+		Mockito.verify(repository, Mockito.times(2)).findById(id);
+	}
+	
 	@Test
 	@DisplayName("Deve deletar um livro com sucesso")
 	public void deleteBookTest() {
@@ -172,6 +245,60 @@ class BookServiceTest {
 		Mockito.verify(repository, Mockito.never()).delete(book);
 	}
 
+	@Test
+	@DisplayName("Deve salvar um lote de livros ignorando os duplicados")
+	public void saveAllBooksTest() {
+		
+		Book book = Book.builder().author("James Jhonson").title("As Aventuras de James Jhonson").isbn("85412369").build();
+		Book duplicatedIsbn = Book.builder().author("Washington").title("Title").isbn("78954321").build();
+		Book duplicatedInBatch = Book.builder().author("Washington").title("As Aventuras de James Jhonson").isbn("75391426").build();
+		
+		Mockito.when(repository.findIsbnsIn(Mockito.anyCollection())).thenReturn(Set.of("78954321"));
+		Mockito.when(repository.findTitlesIn(Mockito.anyCollection())).thenReturn(Set.of());
+		Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+			List<Book> books = invocation.getArgument(0);
+			books.forEach(b -> b.setId(1L));
+			return books;
+		});
+		
+		List<BookImportResult> results = service.saveAll(List.of(book, duplicatedIsbn, duplicatedInBatch));
+		
+		assertThat(results).extracting(BookImportResult::getStatus)
+			.containsExactly(Status.CREATED, Status.DUPLICATED, Status.DUPLICATED);
+		assertThat(results.get(0).getId()).isEqualTo(1L);
+		assertThat(results.get(1).getMessage()).isEqualTo("Isbn já cadastrado.");
+		assertThat(results.get(2).getMessage()).isEqualTo("Título já cadastrado.");
+		Mockito.verify(repository, Mockito.times(1)).saveAll(List.of(book));
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros por título e autor no índice textual")
+	public void searchBookTest() {
+		
+		Book book = Book.builder().id(1L).author("James Jhonson").title("As Aventuras de James Jhonson").isbn("85412369").build();
+		Book other = Book.builder().id(2L).author("Washington").title("Aventura no Ártico").isbn("75391426").build();
+		Book unrelated = Book.builder().id(3L).author("Washington").title("Title").isbn("12345678").build();
+		searchIndex.index(List.of(book, other, unrelated));
+		
+		Mockito.when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book, other));
+		
+		Page<Book> result = service.findByAuthorAndTitle(Book.builder().title("aventura").build(), PageRequest.of(0, 10));
+		
+		assertThat(result.getTotalElements()).isEqualTo(2);
+		assertThat(result.getContent()).containsExactly(other, book);
+		
+		searchIndex.remove(1L);
+		Mockito.when(repository.findAllById(List.of(2L))).thenReturn(List.of(other));
+		
+		Page<Book> afterRemoval = service.findByAuthorAndTitle(Book.builder().title("aventura").author("washing").build(), PageRequest.of(0, 10));
+		
+		assertThat(afterRemoval.getContent()).containsExactly(other);
+		
+		Throwable tooDeep = catchThrowable(() -> service.findByAuthorAndTitle(Book.builder().title("aventura").build(), PageRequest.of(Integer.MAX_VALUE / 10, 20)));
+		
+		assertThat(tooDeep).isInstanceOf(BusinessException.class).hasMessage("A busca por texto alcança no máximo 10000 resultados.");
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Test
 	@DisplayName("Deve filtar livros pelas propriedades")
@@ -196,5 +323,58 @@ class BookServiceTest {
 		assertThat(result.getPageable().getPageSize()).isEqualTo(10);
 	}
 	
+	@Test
+	@DisplayName("Deve lançar exceção ao projetar campo inexistente")
+	public void findBookInvalidFieldsTest() {
+		
+		Throwable exception = catchThrowable(() -> service.findByAuthorAndTitle(new Book(), Set.of("version"), PageRequest.of(0, 10)));
+		
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Campo inválido: version.");
+		Mockito.verifyNoInteractions(repository);
+	}
+	
+	@Test
+	@DisplayName("Deve buscar livros por ids em lotes reaproveitando o cache")
+	@SuppressWarnings("unchecked")
+	public void findAllByIdTest() {
+		
+		List<Long> ids = new ArrayList<Long>();
+		for(long id = 1; id <= 1100; id++) {
+			ids.add(id);
+		}
+		Mockito.when(repository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+			List<Book> books = new ArrayList<Book>();
+			for(Long id : (Iterable<Long>) invocation.getArgument(0)) {
+				if(id % 100 != 0) {
+					books.add(Book.builder().id(id).isbn("isbn-" + id).build());
+				}
+			}
+			return books;
+		});
+		
+		Map<Long, Book> first = service.findAllById(List.of(1L, 2L, 100L));
+		Map<Long, Book> again = service.findAllById(List.of(1L, 2L, 100L));
+		
+		assertThat(first).containsOnlyKeys(1L, 2L);
+		assertThat(again).containsOnlyKeys(1L, 2L);
+		Mockito.verify(repository).findAllById(List.of(1L, 2L, 100L));
+		Mockito.verify(repository).findAllById(List.of(100L));
+		
+		Map<String, Book> byIsbn = service.findAllByIsbn(List.of("isbn-1", "isbn-100"));
+		
+		assertThat(byIsbn).containsOnlyKeys("isbn-1");
+		Mockito.verify(repository).findByIsbnIn(List.of("isbn-100"));
+		
+		Map<Long, Book> found = service.findAllById(ids);
+		
+		assertThat(found).hasSize(1089).doesNotContainKey(100L);
+		assertThat(found.get(1L).getIsbn()).isEqualTo("isbn-1");
+		Mockito.verify(repository, Mockito.times(5)).findAllById(Mockito.anyIterable());
+	}
+	
+	private DataIntegrityViolationException uniqueViolation(String index) {
+		return new DataIntegrityViolationException("could not execute statement",
+				new RuntimeException("Unique index or primary key violation: \"PUBLIC." + index + "\""));
+	}
 	
 }
@@ -0,0 +1,132 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.richardeveloper.models.IdempotencyRecord;
+import br.com.richardeveloper.models.dto.BookDTO;
+import br.com.richardeveloper.repositories.IdempotencyRecordRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+class IdempotencyStoreTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final BookDTO request = BookDTO.builder().title("Title").author("Author").isbn("123").build();
+
+	@Test
+	@DisplayName("Deve executar uma única vez requisições concorrentes com a mesma chave")
+	public void coalesceConcurrentRequestsTest() throws Exception {
+		
+		IdempotencyStore store = store(null);
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<ResponseEntity<BookDTO>>> responses = new ArrayList<Future<ResponseEntity<BookDTO>>>();
+		
+		try {
+			for(int i = 0; i < 8; i++) {
+				responses.add(executor.submit(() -> store.execute("books", "key", request, BookDTO.class, () -> {
+					executions.incrementAndGet();
+					running.countDown();
+					await(release);
+					return new ResponseEntity<BookDTO>(BookDTO.builder().id(1L).build(), HttpStatus.CREATED);
+				})));
+			}
+			running.await(5, TimeUnit.SECONDS);
+			release.countDown();
+			for(Future<ResponseEntity<BookDTO>> response : responses) {
+				assertThat(response.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+				assertThat(response.get().getBody().getId()).isEqualTo(1L);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		assertThat(executions).hasValue(1);
+	}
+
+	@Test
+	@DisplayName("Deve permitir nova tentativa quando a execução original falhar")
+	public void forgetFailedRequestTest() {
+		
+		IdempotencyStore store = store(null);
+		
+		Throwable exception = catchThrowable(() -> store.execute("books", "key", request, BookDTO.class, () -> {
+			throw new BusinessException("Isbn já cadastrado.");
+		}));
+		ResponseEntity<BookDTO> retry = store.execute("books", "key", request, BookDTO.class,
+				() -> new ResponseEntity<BookDTO>(BookDTO.builder().id(2L).build(), HttpStatus.CREATED));
+		
+		assertThat(exception).isInstanceOf(BusinessException.class);
+		assertThat(retry.getBody().getId()).isEqualTo(2L);
+		assertThat(retry.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve repetir a resposta persistida sem executar a requisição")
+	public void replayPersistedResponseTest() throws Exception {
+		
+		IdempotencyRecordRepository repository = Mockito.mock(IdempotencyRecordRepository.class);
+		IdempotencyStore first = store(repository);
+		first.execute("books", "key", request, BookDTO.class,
+				() -> new ResponseEntity<BookDTO>(BookDTO.builder().id(3L).build(), HttpStatus.CREATED));
+		
+		IdempotencyRecord saved = Mockito.mockingDetails(repository).getInvocations().stream()
+				.filter(invocation -> invocation.getMethod().getName().equals("save"))
+				.map(invocation -> (IdempotencyRecord) invocation.getArgument(0))
+				.findFirst().orElseThrow();
+		Mockito.when(repository.findById("books:key")).thenReturn(Optional.of(saved));
+		
+		ResponseEntity<BookDTO> replayed = store(repository).execute("books", "key", request, BookDTO.class, () -> {
+			throw new AssertionError("should not run");
+		});
+		
+		assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(replayed.getBody().getId()).isEqualTo(3L);
+		
+		saved.setCreatedAt(Instant.now().minus(Duration.ofDays(2)));
+		ResponseEntity<BookDTO> expired = store(repository).execute("books", "key", request, BookDTO.class,
+				() -> new ResponseEntity<BookDTO>(BookDTO.builder().id(4L).build(), HttpStatus.CREATED));
+		
+		assertThat(expired.getBody().getId()).isEqualTo(4L);
+	}
+
+	@SuppressWarnings("unchecked")
+	private IdempotencyStore store(IdempotencyRecordRepository repository) {
+		ObjectProvider<IdempotencyRecordRepository> provider = Mockito.mock(ObjectProvider.class);
+		Mockito.when(provider.getIfAvailable()).thenReturn(repository);
+		return new IdempotencyStore(objectMapper, provider, 100, Duration.ofDays(1), Duration.ofSeconds(5), repository != null);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class LateLoanJobTest {
+
+	private LateLoanJob job;
+	
+	@MockBean
+	private LoanService service;
+	
+	@BeforeEach
+	public void setUp() {
+		this.job = new LateLoanJob(service, 14, 2, 2);
+	}
+	
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		this.job.destroy();
+	}
+	
+	@Test
+	@DisplayName("Deve processar todos os lotes de empréstimos atrasados")
+	public void scanLateLoansTest() {
+		
+		LocalDate dueBefore = LocalDate.of(2020, 2, 1);
+		Book book = Book.builder().id(1L).isbn("123").build();
+		Loan first = Loan.builder().id(1L).book(book).customer("Stive").loanDate(LocalDate.of(2020, 1, 1)).build();
+		Loan second = Loan.builder().id(2L).book(book).customer("Stive").loanDate(LocalDate.of(2020, 1, 2)).build();
+		Loan third = Loan.builder().id(3L).book(book).customer("Stive").loanDate(LocalDate.of(2020, 1, 3)).build();
+		
+		Mockito.when(service.findLate(dueBefore, null, 2))
+				.thenReturn(new SliceImpl<Loan>(Arrays.asList(first, second), PageRequest.of(0, 2), true));
+		Mockito.when(service.findLate(dueBefore, second, 2))
+				.thenReturn(new SliceImpl<Loan>(Collections.singletonList(third), PageRequest.of(0, 2), false));
+		
+		int processed = job.scan(dueBefore);
+		
+		assertThat(processed).isEqualTo(3);
+		Mockito.verify(service, Mockito.times(2)).findLate(Mockito.eq(dueBefore), Mockito.any(), Mockito.eq(2));
+	}
+	
+}
@@ -0,0 +1,160 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("test")
+class LoanCheckoutConcurrencyTest {
+
+	private static final int CONTENDERS = 16;
+
+	private static final int CHECKOUTS_PER_THREAD = 50;
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	private static final Logger log = LoggerFactory.getLogger(LoanCheckoutConcurrencyTest.class);
+
+	@Autowired
+	private LoanService service;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	private final List<Book> created = new ArrayList<Book>();
+
+	@AfterEach
+	public void tearDown() {
+		Set<Long> ids = new HashSet<Long>();
+		created.forEach(book -> ids.add(book.getId()));
+		loanRepository.deleteAll(loanRepository.findAll().stream()
+				.filter(loan -> ids.contains(loan.getBook().getId()))
+				.collect(Collectors.toList()));
+		bookRepository.deleteAll(bookRepository.findAllById(ids));
+		created.clear();
+	}
+
+	@Test
+	@DisplayName("Deve emprestar um livro disputado por várias threads apenas uma vez")
+	public void concurrentCheckoutOfSameBookTest() throws Exception {
+		
+		Book book = createBooks(1).get(0);
+		ExecutorService executor = Executors.newFixedThreadPool(CONTENDERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> attempts = new ArrayList<Future<Boolean>>();
+		
+		try {
+			for(int i = 0; i < CONTENDERS; i++) {
+				String customer = "Customer " + i;
+				attempts.add(executor.submit(() -> {
+					start.await();
+					try {
+						service.save(loan(book, customer));
+						return true;
+					} catch (BusinessException e) {
+						assertThat(e).hasMessage("Book already loaned");
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+			
+			int succeeded = 0;
+			for(Future<Boolean> attempt : attempts) {
+				if(attempt.get(30, TimeUnit.SECONDS)) {
+					succeeded++;
+				}
+			}
+			
+			assertThat(succeeded).isEqualTo(1);
+			assertThat(loanRepository.findAll().stream()
+					.filter(loan -> loan.getBook().getId().equals(book.getId()) && !loan.getReturned()))
+					.hasSize(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@DisplayName("Deve emprestar livros distintos em paralelo sem conflitos e registrar a vazão por número de threads")
+	public void concurrentCheckoutThroughputTest() throws Exception {
+		
+		for(int threads = 1; threads <= 8; threads *= 2) {
+			List<Book> books = createBooks(threads * CHECKOUTS_PER_THREAD);
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			List<Callable<Integer>> workers = new ArrayList<Callable<Integer>>();
+			for(int t = 0; t < threads; t++) {
+				List<Book> share = books.subList(t * CHECKOUTS_PER_THREAD, (t + 1) * CHECKOUTS_PER_THREAD);
+				workers.add(() -> {
+					for(Book book : share) {
+						service.save(loan(book, "Customer"));
+					}
+					return share.size();
+				});
+			}
+			
+			try {
+				long started = System.nanoTime();
+				int checkouts = 0;
+				for(Future<Integer> worker : executor.invokeAll(workers, 60, TimeUnit.SECONDS)) {
+					checkouts += worker.get();
+				}
+				long elapsed = System.nanoTime() - started;
+				
+				assertThat(checkouts).isEqualTo(books.size());
+				log.info("Loan checkout with {} thread(s): {} checkouts in {} ms, {} checkouts/s", threads, checkouts,
+						TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(checkouts / (elapsed / 1_000_000_000.0)));
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private List<Book> createBooks(int size) {
+		List<Book> books = new ArrayList<Book>(size);
+		for(int i = 0; i < size; i++) {
+			int n = SEQUENCE.incrementAndGet();
+			books.add(Book.builder().title("Concurrency " + n).author("Author").isbn("CC-" + n).build());
+		}
+		List<Book> saved = bookRepository.saveAll(books);
+		created.addAll(saved);
+		return saved;
+	}
+
+	private Loan loan(Book book, String customer) {
+		return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+	}
+
+}
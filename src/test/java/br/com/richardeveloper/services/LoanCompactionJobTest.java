@@ -0,0 +1,93 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanHistoryRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("test")
+class LoanCompactionJobTest {
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	@Autowired
+	private LoanService service;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private LoanHistoryRepository historyRepository;
+
+	@Test
+	@DisplayName("Deve arquivar empréstimos devolvidos mantendo o histórico do cliente completo")
+	public void compactReturnedLoansTest() {
+		
+		String customer = "Compaction " + SEQUENCE.incrementAndGet();
+		List<Book> books = createBooks(5);
+		List<Long> ids = new ArrayList<Long>();
+		for(int day = 1; day <= 5; day++) {
+			Loan loan = loanRepository.save(Loan.builder().book(books.get(day - 1)).customer(customer)
+					.loanDate(LocalDate.of(2020, 1, day)).returned(false).build());
+			ids.add(loan.getId());
+		}
+		for(Long id : ids.subList(0, 4)) {
+			service.returnLoan(id);
+		}
+		
+		int archived = new LoanCompactionJob(service, 2).compact();
+		
+		assertThat(archived).isGreaterThanOrEqualTo(4);
+		assertThat(loanRepository.findAllById(ids)).extracting(Loan::getId).containsExactly(ids.get(4));
+		assertThat(historyRepository.findAllById(ids)).hasSize(4);
+		assertThat(catchThrowable(() -> service.returnLoan(ids.get(0))))
+				.isInstanceOf(BusinessException.class).hasMessage("Loan already returned");
+		
+		Slice<Loan> first = service.findHistory(customer, null, null, 3);
+		Slice<Loan> second = service.findHistory(customer, null, first.getContent().get(2), 3);
+		
+		assertThat(first.getContent()).extracting(Loan::getId).containsExactly(ids.get(4), ids.get(3), ids.get(2));
+		assertThat(first.getContent()).extracting(Loan::getReturned).containsExactly(false, true, true);
+		assertThat(first.hasNext()).isTrue();
+		assertThat(second.getContent()).extracting(Loan::getId).containsExactly(ids.get(1), ids.get(0));
+		assertThat(second.hasNext()).isFalse();
+		assertThat(service.findHistory(null, books.get(0).getId(), null, 10).getContent()).extracting(Loan::getId)
+				.containsExactly(ids.get(0));
+		
+		Loan again = service.save(Loan.builder().book(books.get(0)).customer(customer).loanDate(LocalDate.now()).build());
+		
+		assertThat(again.getId()).isNotIn(ids);
+	}
+
+	private List<Book> createBooks(int size) {
+		List<Book> books = new ArrayList<Book>(size);
+		for(int i = 0; i < size; i++) {
+			int n = SEQUENCE.incrementAndGet();
+			books.add(Book.builder().title("Compaction " + n).author("Author").isbn("CP-" + n).build());
+		}
+		return bookRepository.saveAll(books);
+	}
+
+}
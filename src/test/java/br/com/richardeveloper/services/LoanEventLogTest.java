@@ -0,0 +1,228 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BulkheadFullException;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = {
+		"library.loans.write-behind.enabled=true",
+		"library.loans.write-behind.durability=enqueue"
+})
+@ActiveProfiles("test")
+class LoanEventLogTest {
+
+	private static final int CONTENDERS = 16;
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	@Autowired
+	private LoanService service;
+
+	@Autowired
+	private LoanEventLog eventLog;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	@DisplayName("Deve emprestar, devolver e emprestar de novo um livro antes da escrita em lote")
+	public void checkoutAndReturnBeforeWriteTest() throws Exception {
+
+		Book book = createBooks(1).get(0);
+
+		Loan first = service.save(loan(book, "Customer 1"));
+		boolean returned = service.returnLoan(first.getId());
+		Loan second = service.save(loan(book, "Customer 2"));
+		Throwable loaned = catchThrowable(() -> service.save(loan(book, "Customer 3")));
+		Throwable alreadyReturned = catchThrowable(() -> service.returnLoan(first.getId()));
+		eventLog.flush();
+
+		assertThat(returned).isTrue();
+		assertThat(second.getId()).isNotEqualTo(first.getId());
+		assertThat(loaned).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+		assertThat(alreadyReturned).isInstanceOf(BusinessException.class).hasMessage("Loan already returned");
+		assertThat(loanRepository.findById(first.getId()).get().getReturned()).isTrue();
+		assertThat(loanRepository.findById(second.getId()).get().getReturned()).isFalse();
+		assertThat(service.returnLoan(Long.MAX_VALUE)).isFalse();
+		assertThat(registry.get("library.loans.events.batch").summary().count()).isPositive();
+		assertThat(registry.get("library.loans.events.written").functionCounter().count()).isGreaterThanOrEqualTo(3);
+		assertThat(registry.get("library.loans.events.queued").gauge().value()).isZero();
+	}
+
+	@Test
+	@DisplayName("Deve incrementar a versão e invalidar o cache do livro após gravar o empréstimo")
+	public void bumpBookVersionOnWriteTest() throws Exception {
+
+		Book book = createBooks(1).get(0);
+		Book cached = bookService.findById(book.getId()).get();
+
+		service.save(loan(book, "Customer"));
+		eventLog.flush();
+		Throwable missing = catchThrowable(() -> service.save(loan(Book.builder().id(Long.MAX_VALUE).build(), "Customer")));
+
+		assertThat(bookService.findById(book.getId()).get().getVersion()).isEqualTo(cached.getVersion() + 1);
+		assertThat(missing).isInstanceOf(BusinessException.class).hasMessage("Book not found");
+	}
+
+	@Test
+	@DisplayName("Deve emprestar um livro disputado por várias threads apenas uma vez com escrita em lote")
+	public void concurrentCheckoutOfSameBookTest() throws Exception {
+
+		Book book = createBooks(1).get(0);
+		ExecutorService executor = Executors.newFixedThreadPool(CONTENDERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> attempts = new ArrayList<Future<Boolean>>();
+
+		try {
+			for(int i = 0; i < CONTENDERS; i++) {
+				String customer = "Customer " + i;
+				attempts.add(executor.submit(() -> {
+					start.await();
+					try {
+						service.save(loan(book, customer));
+						return true;
+					} catch (BusinessException e) {
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+
+			int succeeded = 0;
+			for(Future<Boolean> attempt : attempts) {
+				if(attempt.get(30, TimeUnit.SECONDS)) {
+					succeeded++;
+				}
+			}
+			eventLog.flush();
+
+			assertThat(succeeded).isEqualTo(1);
+			assertThat(loanRepository.existsByBookIdAndReturnedFalse(book.getId())).isTrue();
+			assertThat(loanRepository.findAll().stream()
+					.filter(loan -> loan.getBook().getId().equals(book.getId())))
+					.hasSize(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@DirtiesContext
+	@DisplayName("Deve gravar os eventos pendentes ao encerrar e recusar novos")
+	public void flushOnShutdownTest() throws Exception {
+
+		List<Book> books = createBooks(200);
+		List<Long> ids = new ArrayList<Long>(books.size());
+		for(Book book : books) {
+			ids.add(service.save(loan(book, "Customer")).getId());
+		}
+
+		eventLog.destroy();
+		Throwable rejected = catchThrowable(() -> service.save(loan(createBooks(1).get(0), "Customer")));
+
+		assertThat(loanRepository.findAllById(ids)).hasSize(200);
+		assertThat(rejected).isInstanceOf(BulkheadFullException.class);
+	}
+
+	@Test
+	@DisplayName("Deve falhar a espera sem escritor em vez de bloquear para sempre")
+	public void boundedWaitTest() throws Exception {
+		
+		LoanEventLog stopped = stoppedLog(Duration.ofMillis(50));
+		
+		Throwable timedOut = catchThrowable(stopped::flush);
+		
+		assertThat(timedOut).isInstanceOf(QueryTimeoutException.class);
+	}
+	
+	@Test
+	@DisplayName("Deve falhar os eventos não gravados ao encerrar e recusar os seguintes")
+	public void failLeftoversOnShutdownTest() throws Exception {
+		
+		LoanEventLog stopped = stoppedLog(Duration.ofMinutes(1));
+		SimpleMeterRegistry meters = new SimpleMeterRegistry();
+		stopped.bindTo(meters);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try {
+			Future<Void> waiting = executor.submit(() -> {
+				stopped.flush();
+				return null;
+			});
+			while(meters.get("library.loans.events.queued").gauge().value() == 0) {
+				Thread.sleep(1);
+			}
+			
+			stopped.destroy();
+			Throwable failed = catchThrowable(() -> waiting.get(5, TimeUnit.SECONDS));
+			Throwable rejected = catchThrowable(stopped::flush);
+			
+			assertThat(failed).hasCauseInstanceOf(IllegalStateException.class);
+			assertThat(rejected).isInstanceOf(BulkheadFullException.class);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * Never started, so nothing it queues is written.
+	 */
+	private LoanEventLog stoppedLog(Duration commitTimeout) {
+		return new LoanEventLog(loanRepository, bookRepository, null, null, null, Mockito.mock(PlatformTransactionManager.class),
+				10, 10, LoanEventLog.Durability.COMMIT, Duration.ofMillis(10), Duration.ofMillis(10), commitTimeout);
+	}
+
+	private List<Book> createBooks(int size) {
+		List<Book> books = new ArrayList<Book>(size);
+		for(int i = 0; i < size; i++) {
+			int n = SEQUENCE.incrementAndGet();
+			books.add(Book.builder().title("Write Behind " + n).author("Author").isbn("WB-" + n).build());
+		}
+		return bookRepository.saveAll(books);
+	}
+
+	private Loan loan(Book book, String customer) {
+		return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+	}
+
+}
@@ -0,0 +1,170 @@
+package br.com.richardeveloper.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.richardeveloper.models.Book;
+import br.com.richardeveloper.models.Loan;
+import br.com.richardeveloper.models.LoanHistory;
+import br.com.richardeveloper.repositories.BookRepository;
+import br.com.richardeveloper.repositories.LoanHistoryRepository;
+import br.com.richardeveloper.repositories.LoanRepository;
+import br.com.richardeveloper.resources.exceptions.BusinessException;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class LoanServiceTest {
+
+	private LoanService service;
+	
+	@MockBean
+	private LoanRepository repository;
+	
+	@MockBean
+	private LoanHistoryRepository historyRepository;
+	
+	@MockBean
+	private BookRepository bookRepository;
+	
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+	
+	@BeforeEach
+	public void setUp() {
+		@SuppressWarnings("unchecked")
+		ObjectProvider<LoanEventLog> eventLog = Mockito.mock(ObjectProvider.class);
+		this.service = new LoanServiceImpl(repository, historyRepository, bookRepository, new BookCache(100, Duration.ofMinutes(10)), transactionManager, eventLog);
+		
+		Mockito.when(bookRepository.findVersionById(1L)).thenReturn(Optional.of(0L));
+		Mockito.when(bookRepository.incrementVersion(1L, 0L)).thenReturn(1);
+	}
+	
+	@Test
+	@DisplayName("Deve salvar um empréstimo")
+	public void saveLoanTest() {
+		
+		Book book = Book.builder().id(1L).build();
+		Loan loan = Loan.builder().book(book).customer("Stive").loanDate(LocalDate.now()).build();
+		Loan savedLoan = Loan.builder().id(1L).book(book).customer("Stive").loanDate(LocalDate.now()).returned(false).build();
+		
+		Mockito.when(repository.existsByBookIdAndReturnedFalse(book.getId())).thenReturn(false);
+		Mockito.when(repository.save(loan)).thenReturn(savedLoan);
+		
+		Loan loaned = service.save(loan);
+		
+		assertThat(loaned.getId()).isEqualTo(1L);
+		assertThat(loan.getReturned()).isFalse();
+	}
+	
+	@Test
+	@DisplayName("Deve lançar exceção ao emprestar um livro já emprestado")
+	public void loanedBookSaveTest() {
+		
+		Book book = Book.builder().id(1L).build();
+		Loan loan = Loan.builder().book(book).customer("Stive").loanDate(LocalDate.now()).build();
+		
+		Mockito.when(repository.existsByBookIdAndReturnedFalse(book.getId())).thenReturn(true);
+		
+		Throwable exception = catchThrowable(() -> service.save(loan));
+		
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+		Mockito.verify(repository, Mockito.never()).save(loan);
+	}
+	
+	@Test
+	@DisplayName("Deve tentar novamente quando a versão do livro mudar durante o empréstimo")
+	public void retryConcurrentLoanTest() {
+		
+		Book book = Book.builder().id(1L).build();
+		Loan loan = Loan.builder().book(book).customer("Stive").loanDate(LocalDate.now()).build();
+		Loan savedLoan = Loan.builder().id(1L).book(book).customer("Stive").loanDate(LocalDate.now()).returned(false).build();
+		
+		Mockito.when(bookRepository.findVersionById(1L)).thenReturn(Optional.of(0L), Optional.of(1L));
+		Mockito.when(bookRepository.incrementVersion(1L, 1L)).thenReturn(1);
+		Mockito.when(bookRepository.incrementVersion(1L, 0L)).thenReturn(0);
+		Mockito.when(repository.save(loan)).thenReturn(savedLoan);
+		
+		Loan loaned = service.save(loan);
+		
+		assertThat(loaned.getId()).isEqualTo(1L);
+		Mockito.verify(bookRepository).incrementVersion(1L, 0L);
+		Mockito.verify(bookRepository).incrementVersion(1L, 1L);
+	}
+	
+	@Test
+	@DisplayName("Deve desistir do empréstimo após o limite de tentativas")
+	public void exhaustedConcurrentLoanTest() {
+		
+		Book book = Book.builder().id(1L).build();
+		Loan loan = Loan.builder().book(book).customer("Stive").loanDate(LocalDate.now()).build();
+		
+		Mockito.when(bookRepository.incrementVersion(1L, 0L)).thenReturn(0);
+		
+		Throwable exception = catchThrowable(() -> service.save(loan));
+		
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+		Mockito.verify(bookRepository, Mockito.times(LoanServiceImpl.MAX_ATTEMPTS)).incrementVersion(1L, 0L);
+		Mockito.verify(repository, Mockito.never()).save(loan);
+	}
+	
+	@Test
+	@DisplayName("Deve devolver um empréstimo em aberto apenas uma vez")
+	public void returnLoanTest() {
+		
+		Mockito.when(repository.markReturned(1L)).thenReturn(1, 0);
+		Mockito.when(repository.existsById(1L)).thenReturn(true);
+		
+		boolean returned = service.returnLoan(1L);
+		Throwable exception = catchThrowable(() -> service.returnLoan(1L));
+		
+		assertThat(returned).isTrue();
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Loan already returned");
+		assertThat(service.returnLoan(2L)).isFalse();
+		
+		Mockito.when(historyRepository.existsById(3L)).thenReturn(true);
+		
+		assertThat(catchThrowable(() -> service.returnLoan(3L))).isInstanceOf(BusinessException.class);
+	}
+	
+	@Test
+	@DisplayName("Deve intercalar empréstimos ativos e arquivados no histórico do cliente")
+	public void findHistoryTest() {
+		
+		Book book = Book.builder().id(1L).isbn("123").build();
+		Loan open = Loan.builder().id(5L).book(book).customer("Stive").loanDate(LocalDate.of(2020, 1, 5)).returned(false).build();
+		Loan returned = Loan.builder().id(3L).book(book).customer("Stive").loanDate(LocalDate.of(2020, 1, 3)).returned(true).build();
+		LoanHistory archived = LoanHistory.builder().id(4L).bookId(1L).isbn("123").customer("Stive").loanDate(LocalDate.of(2020, 1, 4)).build();
+		LoanHistory moving = LoanHistory.builder().id(3L).bookId(1L).isbn("123").customer("Stive").loanDate(LocalDate.of(2020, 1, 3)).build();
+		
+		Mockito.when(repository.findByCustomerBefore(Mockito.eq("Stive"), Mockito.isNull(), Mockito.isNull(), Mockito.any()))
+				.thenReturn(Arrays.asList(open, returned));
+		Mockito.when(historyRepository.findByCustomerBefore(Mockito.eq("Stive"), Mockito.isNull(), Mockito.isNull(), Mockito.any()))
+				.thenReturn(Arrays.asList(archived, moving));
+		
+		Slice<Loan> history = service.findHistory("Stive", null, null, 2);
+		
+		assertThat(history.getContent()).extracting(Loan::getId).containsExactly(5L, 4L);
+		assertThat(history.getContent().get(1).getReturned()).isTrue();
+		assertThat(history.getContent().get(1).getBook().getIsbn()).isEqualTo("123");
+		assertThat(history.hasNext()).isTrue();
+		Mockito.verify(repository, Mockito.never()).findByBookBefore(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+	}
+	
+}